@@ -0,0 +1,34 @@
+package org.example.bench;
+
+import org.example.Main;
+import org.example.StreamingIngest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+//各基准共用的语料和建图：固定种子保证每次运行的数据相同
+final class BenchCorpus {
+    static final long SEED = 2021110499L;
+    //超过这个规模时不再把整份语料放进内存，写到临时文件后用StreamingIngest建图
+    static final long IN_MEMORY_LIMIT = 20_000_000L;
+
+    private BenchCorpus() {
+    }
+
+    static Main.Graph build(Main lab, CorpusGenerator generator, long tokens) throws IOException {
+        Main.Graph graph = lab.new Graph();
+        if (tokens <= IN_MEMORY_LIMIT) {
+            lab.Text2Graph(graph, lab.new Text(Main.address_file(generator.generate((int) tokens))));
+            return graph;
+        }
+        Path file = Files.createTempFile("corpus", ".txt");
+        try {
+            generator.write(tokens, file);
+            StreamingIngest.ingest(graph, file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return graph;
+    }
+}
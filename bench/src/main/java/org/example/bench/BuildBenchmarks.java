@@ -0,0 +1,62 @@
+package org.example.bench;
+
+import org.example.CsrGraph;
+import org.example.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//分词和建图：整份语料在内存中，规模上限为BenchCorpus.IN_MEMORY_LIMIT
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildBenchmarks {
+    @Param({"10000", "1000000"})
+    public int tokens;
+
+    private final Main lab = new Main();
+    private String raw;
+    private String normalized;
+
+    @Setup
+    public void setup() {
+        if (tokens > BenchCorpus.IN_MEMORY_LIMIT) {
+            throw new IllegalArgumentException("use IngestBenchmarks above " + BenchCorpus.IN_MEMORY_LIMIT + " tokens");
+        }
+        raw = CorpusGenerator.forTokens(tokens, BenchCorpus.SEED).generate(tokens);
+        normalized = Main.address_file(raw);
+    }
+
+    @Benchmark
+    public List<String> tokenize() {
+        return Main.INPUT_text(Main.address_file(raw));
+    }
+
+    @Benchmark
+    public CsrGraph text2Graph() {
+        Main.Graph graph = lab.new Graph();
+        lab.Text2Graph(graph, lab.new Text(normalized));
+        return graph.freeze();
+    }
+
+    @Benchmark
+    public CsrGraph text2GraphParallel() {
+        Main.Graph graph = lab.new Graph();
+        lab.Text2GraphParallel(graph, lab.new Text(normalized));
+        return graph.freeze();
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+//可复现的合成语料：词表中第r个单词的出现概率正比于1/(r+1)^s（Zipf分布），
+//单词只含小写字母，按ID编码生成，保证address_file处理后不变
+public class CorpusGenerator {
+    private final int vocabularySize;
+    private final double exponent;
+    private final long seed;
+    private final double[] cdf;
+
+    public CorpusGenerator(int vocabularySize, double exponent, long seed) {
+        if (vocabularySize <= 0) {
+            throw new IllegalArgumentException("vocabularySize must be positive: " + vocabularySize);
+        }
+        this.vocabularySize = vocabularySize;
+        this.exponent = exponent;
+        this.seed = seed;
+        cdf = new double[vocabularySize];
+        double sum = 0;
+        for (int r = 0; r < vocabularySize; r++) {
+            sum += 1.0 / Math.pow(r + 1, exponent);
+            cdf[r] = sum;
+        }
+        for (int r = 0; r < vocabularySize; r++) {
+            cdf[r] /= sum;
+        }
+    }
+
+    //常用的词表规模：词数的平方根量级，上限一百万
+    public static CorpusGenerator forTokens(long tokens, long seed) {
+        int vocabulary = (int) Math.min(1_000_000, Math.max(100, Math.sqrt(tokens) * 10));
+        return new CorpusGenerator(vocabulary, 1.1, seed);
+    }
+
+    public int getVocabularySize() {
+        return vocabularySize;
+    }
+
+    //第id个单词：id的26进制表示（低位在前），至少两个字母，id为0..25时高位补'a'，不同id对应不同单词
+    public static String word(int id) {
+        StringBuilder sb = new StringBuilder();
+        sb.append((char) ('a' + id % 26));
+        int v = id / 26;
+        do {
+            sb.append((char) ('a' + v % 26));
+            v /= 26;
+        } while (v > 0);
+        return sb.toString();
+    }
+
+    public int sample(SplittableRandom rand) {
+        int index = Arrays.binarySearch(cdf, rand.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, vocabularySize - 1);
+    }
+
+    //生成tokens个单词，单词之间用空格分隔，每20个单词加一个标点，每200个单词换行
+    public void write(long tokens, Writer out) throws IOException {
+        SplittableRandom rand = new SplittableRandom(seed);
+        String[] words = new String[vocabularySize];
+        for (long i = 0; i < tokens; i++) {
+            int id = sample(rand);
+            if (words[id] == null) {
+                words[id] = word(id);
+            }
+            out.write(words[id]);
+            if (i % 200 == 199) {
+                out.write('\n');
+            } else if (i % 20 == 19) {
+                out.write(", ");
+            } else {
+                out.write(' ');
+            }
+        }
+    }
+
+    public void write(long tokens, Path path) throws IOException {
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16)) {
+            write(tokens, out);
+        }
+    }
+
+    public String generate(int tokens) {
+        StringWriter out = new StringWriter();
+        try {
+            write(tokens, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
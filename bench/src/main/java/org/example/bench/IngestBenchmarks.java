@@ -0,0 +1,55 @@
+package org.example.bench;
+
+import org.example.CsrGraph;
+import org.example.Main;
+import org.example.StreamingIngest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+//从文件流式建图，用于放不进内存的大规模语料；每次调用耗时较长，按单次计时
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmarks {
+    @Param({"1000000", "100000000"})
+    public long tokens;
+
+    private final Main lab = new Main();
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("corpus", ".txt");
+        CorpusGenerator.forTokens(tokens, BenchCorpus.SEED).write(tokens, file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public CsrGraph streamingIngest() throws IOException {
+        Main.Graph graph = lab.new Graph();
+        StreamingIngest.ingest(graph, file);
+        return graph.freeze();
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.bench;
+
+import org.example.AliasWalker;
+import org.example.CsrGraph;
+import org.example.GraphExporter;
+import org.example.Main;
+import org.example.ShortestPathEngine;
+import org.example.ShortestPathTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+//建好图之后的各项查询：每次调用执行一个查询，查询的单词对按Zipf分布预先抽样，循环使用
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmarks {
+    private static final int QUERIES = 1 << 12;
+    //generateNewText每次处理的输入长度
+    private static final int INPUT_TOKENS = 10_000;
+
+    @Param({"10000", "1000000"})
+    public long tokens;
+
+    private Main.Graph graph;
+    private CsrGraph csr;
+    private ShortestPathEngine bidirectional;
+    private AliasWalker walker;
+    private final String[] firsts = new String[QUERIES];
+    private final String[] seconds = new String[QUERIES];
+    private final int[] srcIds = new int[QUERIES];
+    private final int[] dstIds = new int[QUERIES];
+    private String input;
+    private final SplittableRandom walkRand = new SplittableRandom(11);
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        CorpusGenerator generator = CorpusGenerator.forTokens(tokens, BenchCorpus.SEED);
+        graph = BenchCorpus.build(new Main(), generator, tokens);
+        csr = graph.freeze();
+        bidirectional = new ShortestPathEngine(csr, true);
+        walker = csr.walker();
+        SplittableRandom rand = new SplittableRandom(7);
+        for (int i = 0; i < QUERIES; i++) {
+            firsts[i] = CorpusGenerator.word(generator.sample(rand));
+            seconds[i] = CorpusGenerator.word(generator.sample(rand));
+            srcIds[i] = Math.max(csr.id(firsts[i]), 0);
+            dstIds[i] = Math.max(csr.id(seconds[i]), 0);
+        }
+        input = Main.address_file(new CorpusGenerator(generator.getVocabularySize(), 1.1, 99).generate(INPUT_TOKENS));
+    }
+
+    private int next() {
+        return cursor++ & (QUERIES - 1);
+    }
+
+    @Benchmark
+    public String queryBridgeWords() {
+        int i = next();
+        return csr.queryBridgeWords(firsts[i], seconds[i]);
+    }
+
+    @Benchmark
+    public String generateNewText() {
+        return graph.generateNewText(input);
+    }
+
+    @Benchmark
+    public String calcShortestPath() {
+        int i = next();
+        return csr.calcShortestPath(firsts[i], seconds[i]);
+    }
+
+    @Benchmark
+    public long calcShortestPathBidirectional() {
+        int i = next();
+        return bidirectional.distance(srcIds[i], dstIds[i]);
+    }
+
+    @Benchmark
+    public long shortestPathTree() {
+        int i = next();
+        return ShortestPathTree.compute(csr, srcIds[i]).distance(dstIds[i]);
+    }
+
+    @Benchmark
+    public List<String> randomWalk() {
+        return walker.walkWords(walkRand);
+    }
+
+    @Benchmark
+    public String generateSVG() {
+        return csr.generateSVG();
+    }
+
+    @Benchmark
+    public int exportSvg() throws IOException {
+        new GraphExporter(csr).export(GraphExporter.Format.SVG, Channels.newChannel(OutputStream.nullOutputStream()));
+        return csr.edgeCount();
+    }
+}
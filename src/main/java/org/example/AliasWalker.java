@@ -0,0 +1,216 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.stream.LongStream;
+
+//基于别名表(alias method)的随机游走：每个节点的出边预先建好别名表，每一步O(1)按权重采样；
+//已走过的边按CSR中的边下标记录在位图里，遇到重复边或没有出边的节点时停止
+public class AliasWalker {
+    private final CsrGraph graph;
+    //与CSR出边数组对齐：prob[e]为选中本列的概率，alias[e]为本行内另一列的相对下标
+    private final double[] prob;
+    private final int[] alias;
+    private final ThreadLocal<Scratch> scratch;
+
+    public AliasWalker(CsrGraph graph) {
+        this.graph = graph;
+        int edges = graph.edgeCount();
+        prob = new double[edges];
+        alias = new int[edges];
+        int[] offsets = graph.outOffsets();
+        int[] small = new int[0];
+        int[] large = new int[0];
+        for (int v = 0; v < graph.idCount(); v++) {
+            int degree = offsets[v + 1] - offsets[v];
+            if (small.length < degree) {
+                small = new int[degree];
+                large = new int[degree];
+            }
+            buildRow(offsets[v], degree, small, large);
+        }
+        scratch = ThreadLocal.withInitial(() -> new Scratch(edges));
+    }
+
+    //增量修改后的别名表：出边没有变化的节点直接复制旧表，只重建变化节点的行
+    AliasWalker(CsrGraph graph, AliasWalker previous, BitSet changedSources) {
+        this.graph = graph;
+        int edges = graph.edgeCount();
+        prob = new double[edges];
+        alias = new int[edges];
+        int[] offsets = graph.outOffsets();
+        int[] oldOffsets = previous.graph.outOffsets();
+        int oldN = previous.graph.idCount();
+        int[] small = new int[0];
+        int[] large = new int[0];
+        for (int v = 0; v < graph.idCount(); v++) {
+            int degree = offsets[v + 1] - offsets[v];
+            if (v < oldN && !changedSources.get(v)) {
+                System.arraycopy(previous.prob, oldOffsets[v], prob, offsets[v], degree);
+                System.arraycopy(previous.alias, oldOffsets[v], alias, offsets[v], degree);
+                continue;
+            }
+            if (small.length < degree) {
+                small = new int[degree];
+                large = new int[degree];
+            }
+            buildRow(offsets[v], degree, small, large);
+        }
+        scratch = ThreadLocal.withInitial(() -> new Scratch(edges));
+    }
+
+    //Vose方法构建一行的别名表
+    private void buildRow(int from, int degree, int[] small, int[] large) {
+        if (degree == 0) {
+            return;
+        }
+        int[] weights = graph.outWeights();
+        long total = 0;
+        for (int k = 0; k < degree; k++) {
+            total += weights[from + k];
+        }
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int k = 0; k < degree; k++) {
+            double scaled = (double) weights[from + k] * degree / total;
+            prob[from + k] = scaled;
+            alias[from + k] = k;
+            if (scaled < 1.0) {
+                small[smallCount++] = k;
+            } else {
+                large[largeCount++] = k;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            alias[from + less] = more;
+            prob[from + more] = prob[from + more] + prob[from + less] - 1.0;
+            if (prob[from + more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // 浮点误差导致剩余的列概率视为1
+        while (largeCount > 0) {
+            prob[from + large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            prob[from + small[--smallCount]] = 1.0;
+        }
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    //按权重采样node的一条出边，返回边下标；node必须有出边
+    public int sampleEdge(int node, RandomGenerator rand) {
+        int from = graph.outOffsets()[node];
+        int degree = graph.outOffsets()[node + 1] - from;
+        int k = rand.nextInt(degree);
+        return rand.nextDouble() < prob[from + k] ? from + k : from + alias[from + k];
+    }
+
+    //从start出发游走，节点ID写入out（不够时扩容），返回包含最终节点数和缓冲区的Scratch
+    private Scratch walk(int start, RandomGenerator rand, int maxLength) {
+        long startNanos = GraphMetrics.start();
+        Scratch s = scratch.get();
+        int[] targets = graph.outTargets();
+        int[] offsets = graph.outOffsets();
+        int length = 0;
+        int edgeCount = 0;
+        int current = start;
+        s.add(length++, current);
+        while (length < maxLength && offsets[current + 1] > offsets[current]) {
+            int edge = sampleEdge(current, rand);
+            if (s.visited(edge)) {
+                break;
+            }
+            s.markEdge(edgeCount++, edge);
+            current = targets[edge];
+            s.add(length++, current);
+        }
+        s.clearEdges(edgeCount);
+        s.length = length;
+        GraphMetrics.record(GraphMetrics.RANDOM_WALK, startNanos);
+        GraphMetrics.recordValue(GraphMetrics.WALK_STEPS, length - 1);
+        return s;
+    }
+
+    public int randomStart(RandomGenerator rand) {
+        int[] nodeIds = graph.nodeIds();
+        if (nodeIds.length == 0) {
+            throw new IllegalArgumentException("The graph is empty, no nodes to start from");
+        }
+        return nodeIds[rand.nextInt(nodeIds.length)];
+    }
+
+    //随机选择起点的一次游走，返回经过的单词
+    public List<String> walkWords(RandomGenerator rand) {
+        Scratch s = walk(randomStart(rand), rand, Integer.MAX_VALUE);
+        List<String> words = new ArrayList<>(s.length);
+        for (int i = 0; i < s.length; i++) {
+            words.add(graph.word(s.nodes[i]));
+        }
+        return words;
+    }
+
+    //并行生成count条游走。第i条游走只由seed和i决定，与线程调度无关，可以复现
+    public void walks(long seed, long count, int maxLength, WalkSink sink) {
+        if (maxLength < 1) {
+            throw new IllegalArgumentException("maxLength must be positive: " + maxLength);
+        }
+        LongStream.range(0, count).parallel().forEach(i -> {
+            SplittableRandom rand = new SplittableRandom(seed ^ (i * 0x9E3779B97F4A7C15L));
+            Scratch s = walk(randomStart(rand), rand, maxLength);
+            sink.accept(i, s.nodes, s.length);
+        });
+    }
+
+    public void walks(long seed, long count, WalkSink sink) {
+        walks(seed, count, Integer.MAX_VALUE, sink);
+    }
+
+    //每个线程复用的游走缓冲区和已访问边位图，游走结束时只清除本次置位的边
+    private static final class Scratch {
+        final long[] visitedBits;
+        int[] nodes = new int[64];
+        int[] edges = new int[64];
+        int length;
+
+        Scratch(int edgeCount) {
+            visitedBits = new long[(edgeCount + 63) >>> 6];
+        }
+
+        void add(int i, int node) {
+            if (i == nodes.length) {
+                nodes = Arrays.copyOf(nodes, i * 2);
+            }
+            nodes[i] = node;
+        }
+
+        boolean visited(int edge) {
+            return (visitedBits[edge >>> 6] & (1L << edge)) != 0;
+        }
+
+        void markEdge(int i, int edge) {
+            if (i == edges.length) {
+                edges = Arrays.copyOf(edges, i * 2);
+            }
+            edges[i] = edge;
+            visitedBits[edge >>> 6] |= 1L << edge;
+        }
+
+        void clearEdges(int count) {
+            for (int i = 0; i < count; i++) {
+                visitedBits[edges[i] >>> 6] = 0;
+            }
+        }
+    }
+}
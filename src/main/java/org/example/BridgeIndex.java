@@ -0,0 +1,188 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//桥接词索引：word1的出邻居与word2的入邻居求交集，只遍历度数较小的一侧，
+//另一侧的边是否存在用(src, dst)打包成long的开放寻址哈希表O(1)判断。
+//哈希表按固定大小分段存放，增量修改时新旧索引共享没有变化的段，只复制被写到的段
+public class BridgeIndex {
+    private static final long EMPTY = -1L;
+    private static final int SEGMENT_BITS = 12;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    private final CsrGraph graph;
+    private final long[][] segments;
+    private final int mask;
+    private final int capacity;
+
+    public BridgeIndex(CsrGraph graph) {
+        this.graph = graph;
+        capacity = Integer.highestOneBit(Math.max(graph.edgeCount(), 4) * 2 - 1) << 1;
+        mask = capacity - 1;
+        segments = new long[Math.max(capacity >>> SEGMENT_BITS, 1)][];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new long[Math.min(capacity, 1 << SEGMENT_BITS)];
+            Arrays.fill(segments[i], EMPTY);
+        }
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        for (int src = 0; src < graph.idCount(); src++) {
+            for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+                long key = key(src, targets[e]);
+                int slot = slot(key);
+                while (get(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                segments[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK] = key;
+            }
+        }
+    }
+
+    private BridgeIndex(CsrGraph graph, long[][] segments, int capacity) {
+        this.graph = graph;
+        this.segments = segments;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    //按增量修改得到新图上的索引：与旧索引共享各段，只插入新边、删除被删的边，
+    //第一次写到某一段时才复制该段（写时复制），旧索引保持不变，仍可被旧快照的读者使用；装载过高时才重建
+    BridgeIndex patch(CsrGraph newGraph, GraphDelta delta) {
+        if ((long) newGraph.edgeCount() * 2 > capacity) {
+            return new BridgeIndex(newGraph);
+        }
+        BridgeIndex patched = new BridgeIndex(newGraph, segments.clone(), capacity);
+        boolean[] copied = new boolean[segments.length];
+        for (GraphDelta.EdgeChange change : delta.getEdgeChanges()) {
+            if (change.isAdded()) {
+                patched.insert(key(change.getSrcId(), change.getDestId()), copied);
+            } else if (change.isRemoved()) {
+                patched.delete(key(change.getSrcId(), change.getDestId()), copied);
+            }
+        }
+        return patched;
+    }
+
+    private long get(int slot) {
+        return segments[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK];
+    }
+
+    private void set(int slot, long key, boolean[] copied) {
+        int segment = slot >>> SEGMENT_BITS;
+        if (!copied[segment]) {
+            segments[segment] = segments[segment].clone();
+            copied[segment] = true;
+        }
+        segments[segment][slot & SEGMENT_MASK] = key;
+    }
+
+    private void insert(long key, boolean[] copied) {
+        int slot = slot(key);
+        while (get(slot) != EMPTY) {
+            if (get(slot) == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        set(slot, key, copied);
+    }
+
+    //线性探测表的删除：把后面同一探测链上的键向前移动填补空位
+    private void delete(long key, boolean[] copied) {
+        int hole = slot(key);
+        while (get(hole) != key) {
+            if (get(hole) == EMPTY) {
+                return;
+            }
+            hole = (hole + 1) & mask;
+        }
+        for (int next = (hole + 1) & mask; get(next) != EMPTY; next = (next + 1) & mask) {
+            int home = slot(get(next));
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                set(hole, get(next), copied);
+                hole = next;
+            }
+        }
+        set(hole, EMPTY, copied);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public boolean hasEdge(int src, int dst) {
+        long key = key(src, dst);
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long k = segments[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK];
+            if (k == key) {
+                return true;
+            }
+            if (k == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    //把src到dst的桥接词ID按升序写入out，返回个数；out长度至少为min(outDegree(src), inDegree(dst))
+    public int bridges(int src, int dst, int[] out) {
+        int count = 0;
+        if (graph.outDegree(src) <= graph.inDegree(dst)) {
+            int[] offsets = graph.outOffsets();
+            int[] targets = graph.outTargets();
+            for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+                if (hasEdge(targets[e], dst)) {
+                    out[count++] = targets[e];
+                }
+            }
+        } else {
+            int[] offsets = graph.inOffsets();
+            int[] sources = graph.inSources();
+            for (int e = offsets[dst]; e < offsets[dst + 1]; e++) {
+                if (hasEdge(src, sources[e])) {
+                    out[count++] = sources[e];
+                }
+            }
+        }
+        return count;
+    }
+
+    public BridgeResult query(String word1, String word2) {
+        long start = GraphMetrics.start();
+        int src = graph.id(word1);
+        int dst = graph.id(word2);
+        if (!graph.containsNode(src) || !graph.containsNode(dst)) {
+            GraphMetrics.record(GraphMetrics.BRIDGE_QUERY, start);
+            return new BridgeResult(word1, word2, false, Collections.emptyList());
+        }
+        int[] ids = new int[Math.min(graph.outDegree(src), graph.inDegree(dst))];
+        int count = bridges(src, dst, ids);
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add(graph.word(ids[i]));
+        }
+        GraphMetrics.record(GraphMetrics.BRIDGE_QUERY, start);
+        return new BridgeResult(word1, word2, true, words);
+    }
+
+    //批量查询，结果顺序与输入顺序一致，不向控制台输出
+    public List<BridgeResult> queryBatch(Collection<? extends Map.Entry<String, String>> pairs) {
+        return pairs.parallelStream()
+                .map(pair -> query(pair.getKey(), pair.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static long key(int src, int dst) {
+        return ((long) src << 32) | (dst & 0xffffffffL);
+    }
+}
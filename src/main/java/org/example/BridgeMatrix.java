@@ -0,0 +1,302 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+//所有存在桥接词的单词对：邻接矩阵的平方A²按行分块用Gustavson算法并行计算，
+//每个块的结果压缩成int数组，结果按行号顺序逐块交给调用方。
+//一行a的结果不超过Σ_{b∈out(a)} outdeg(b)个桥接词加上同样多个单词对的表头，分块前先按这个上限预估，
+//预估字节数超过blockBytes（或行数达到blockRows）时截断成块；单独一行超过blockBytes时独占一块。
+//在途的块数不超过maxPendingBlocks，结果占用的内存约为blockBytes * maxPendingBlocks
+public class BridgeMatrix {
+    private final CsrGraph graph;
+    private int blockRows = 1024;
+    private long blockBytes = 16L << 20;
+    private int maxPendingBlocks = 2 * Runtime.getRuntime().availableProcessors();
+
+    public BridgeMatrix(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    public BridgeMatrix blockRows(int blockRows) {
+        if (blockRows <= 0) {
+            throw new IllegalArgumentException("blockRows must be positive: " + blockRows);
+        }
+        this.blockRows = blockRows;
+        return this;
+    }
+
+    //一个块预估的结果字节数上限
+    public BridgeMatrix blockBytes(long blockBytes) {
+        if (blockBytes <= 0) {
+            throw new IllegalArgumentException("blockBytes must be positive: " + blockBytes);
+        }
+        this.blockBytes = blockBytes;
+        return this;
+    }
+
+    public BridgeMatrix maxPendingBlocks(int maxPendingBlocks) {
+        if (maxPendingBlocks <= 0) {
+            throw new IllegalArgumentException("maxPendingBlocks must be positive: " + maxPendingBlocks);
+        }
+        this.maxPendingBlocks = maxPendingBlocks;
+        return this;
+    }
+
+    //一个有桥接词的单词对；桥接词按ID升序
+    public static final class Pair {
+        private final CsrGraph graph;
+        private final int src;
+        private final int dst;
+        private final int[] bridges;
+
+        Pair(CsrGraph graph, int src, int dst, int[] bridges) {
+            this.graph = graph;
+            this.src = src;
+            this.dst = dst;
+            this.bridges = bridges;
+        }
+
+        public int getSrc() {
+            return src;
+        }
+
+        public int getDst() {
+            return dst;
+        }
+
+        public String getWord1() {
+            return graph.word(src);
+        }
+
+        public String getWord2() {
+            return graph.word(dst);
+        }
+
+        public int getBridgeCount() {
+            return bridges.length;
+        }
+
+        public int[] getBridgeIds() {
+            return bridges;
+        }
+
+        public String[] getBridgeWords() {
+            String[] words = new String[bridges.length];
+            for (int i = 0; i < bridges.length; i++) {
+                words[i] = graph.word(bridges[i]);
+            }
+            return words;
+        }
+    }
+
+    //按(src, dst)顺序遍历所有单词对
+    public Iterator<Pair> iterator() {
+        return new Iterator<Pair>() {
+            private final Blocks blocks = new Blocks();
+            private int[] block = new int[0];
+            private int pos;
+
+            @Override
+            public boolean hasNext() {
+                while (pos >= block.length) {
+                    if (!blocks.hasNext()) {
+                        return false;
+                    }
+                    block = blocks.next();
+                    pos = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Pair next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int src = block[pos];
+                int dst = block[pos + 1];
+                int count = block[pos + 2];
+                int[] bridges = Arrays.copyOfRange(block, pos + 3, pos + 3 + count);
+                pos += 3 + count;
+                return new Pair(graph, src, dst, bridges);
+            }
+        };
+    }
+
+    //每行一个单词对：word1 \t word2 \t 桥接词个数 \t 以空格分隔的桥接词，返回写出的单词对数
+    public long write(Writer out) throws IOException {
+        long pairs = 0;
+        Blocks blocks = new Blocks();
+        while (blocks.hasNext()) {
+            int[] block = blocks.next();
+            for (int pos = 0; pos < block.length; ) {
+                int count = block[pos + 2];
+                out.write(graph.word(block[pos]));
+                out.write('\t');
+                out.write(graph.word(block[pos + 1]));
+                out.write('\t');
+                out.write(Integer.toString(count));
+                out.write('\t');
+                for (int i = 0; i < count; i++) {
+                    if (i > 0) {
+                        out.write(' ');
+                    }
+                    out.write(graph.word(block[pos + 3 + i]));
+                }
+                out.write('\n');
+                pos += 3 + count;
+                pairs++;
+            }
+        }
+        out.flush();
+        return pairs;
+    }
+
+    public long write(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            return write(out);
+        }
+    }
+
+    //按顺序产出各块结果，最多提前提交maxPendingBlocks个块。
+    //计算用的临时数组只属于这一次遍历，遍历结束后随之回收，不留在公共线程池的线程上
+    private final class Blocks {
+        private final ArrayDeque<CompletableFuture<int[]>> pending = new ArrayDeque<>();
+        private final ConcurrentLinkedQueue<Scratch> scratch = new ConcurrentLinkedQueue<>();
+        private int nextRow;
+
+        Blocks() {
+            fill();
+        }
+
+        private void fill() {
+            int n = graph.idCount();
+            while (pending.size() < maxPendingBlocks && nextRow < n) {
+                int lo = nextRow;
+                int hi = lo;
+                long bytes = 0;
+                while (hi < n && hi - lo < blockRows) {
+                    long rowBytes = estimatedBytes(hi);
+                    if (hi > lo && bytes + rowBytes > blockBytes) {
+                        break;
+                    }
+                    bytes += rowBytes;
+                    hi++;
+                }
+                int end = hi;
+                pending.add(CompletableFuture.supplyAsync(() -> computeBlock(lo, end), ForkJoinPool.commonPool()));
+                nextRow = hi;
+            }
+        }
+
+        private int[] computeBlock(int lo, int hi) {
+            Scratch s = scratch.poll();
+            if (s == null) {
+                s = new Scratch(graph.idCount());
+            }
+            try {
+                return BridgeMatrix.this.computeBlock(lo, hi, s);
+            } finally {
+                scratch.add(s);
+            }
+        }
+
+        boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        int[] next() {
+            int[] block = pending.poll().join();
+            fill();
+            return block;
+        }
+    }
+
+    //行a结果的字节数上限：每个两步路径a→b→c贡献一个桥接词，每个不同的c至多再有3个int的表头
+    private long estimatedBytes(int a) {
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        long paths = 0;
+        for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+            int b = targets[e];
+            paths += offsets[b + 1] - offsets[b];
+        }
+        return 4 * (paths + 3 * Math.min(paths, graph.idCount()));
+    }
+
+    //Gustavson：对每一行a，把a的每个后继b的后继c累加到稠密累加器中，桥接词用数组链表按c串起来
+    private int[] computeBlock(int lo, int hi, Scratch s) {
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int size = 0;
+        int[] out = s.out;
+        for (int a = lo; a < hi; a++) {
+            int touched = 0;
+            int entries = 0;
+            for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+                int b = targets[e];
+                for (int f = offsets[b]; f < offsets[b + 1]; f++) {
+                    int c = targets[f];
+                    if (s.count[c]++ == 0) {
+                        s.touched[touched++] = c;
+                        s.head[c] = -1;
+                    }
+                    if (entries == s.bridge.length) {
+                        s.bridge = Arrays.copyOf(s.bridge, entries * 2);
+                        s.next = Arrays.copyOf(s.next, entries * 2);
+                    }
+                    s.bridge[entries] = b;
+                    s.next[entries] = s.head[c];
+                    s.head[c] = entries++;
+                }
+            }
+            Arrays.sort(s.touched, 0, touched);
+            for (int t = 0; t < touched; t++) {
+                int c = s.touched[t];
+                int count = s.count[c];
+                if (size + 3 + count > out.length) {
+                    out = Arrays.copyOf(out, Math.max(out.length * 2, size + 3 + count));
+                }
+                out[size] = a;
+                out[size + 1] = c;
+                out[size + 2] = count;
+                // 链表按插入的逆序，b是按升序插入的
+                int i = size + 2 + count;
+                for (int k = s.head[c]; k >= 0; k = s.next[k]) {
+                    out[i--] = s.bridge[k];
+                }
+                size += 3 + count;
+                s.count[c] = 0;
+            }
+        }
+        s.out = out;
+        return Arrays.copyOf(out, size);
+    }
+
+    private static final class Scratch {
+        final int[] count;
+        final int[] head;
+        final int[] touched;
+        int[] bridge = new int[1024];
+        int[] next = new int[1024];
+        int[] out = new int[1024];
+
+        Scratch(int n) {
+            count = new int[n];
+            head = new int[n];
+            touched = new int[n];
+        }
+    }
+}
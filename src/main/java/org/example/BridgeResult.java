@@ -0,0 +1,57 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.List;
+
+//一次桥接词查询的结构化结果
+public final class BridgeResult {
+    private final String word1;
+    private final String word2;
+    private final boolean wordsFound;
+    private final List<String> bridgeWords;
+
+    BridgeResult(String word1, String word2, boolean wordsFound, List<String> bridgeWords) {
+        this.word1 = word1;
+        this.word2 = word2;
+        this.wordsFound = wordsFound;
+        this.bridgeWords = Collections.unmodifiableList(bridgeWords);
+    }
+
+    public String getWord1() {
+        return word1;
+    }
+
+    public String getWord2() {
+        return word2;
+    }
+
+    //word1和word2是否都在图中
+    public boolean isWordsFound() {
+        return wordsFound;
+    }
+
+    //桥接词，按单词ID升序
+    public List<String> getBridgeWords() {
+        return bridgeWords;
+    }
+
+    public boolean hasBridgeWords() {
+        return !bridgeWords.isEmpty();
+    }
+
+    //与Graph.queryBridgeWords的返回值相同：没有桥接词时为" "，否则用", "连接
+    public String format() {
+        return bridgeWords.isEmpty() ? " " : String.join(", ", bridgeWords);
+    }
+
+    @Override
+    public String toString() {
+        if (!wordsFound) {
+            return "No " + word1 + " or " + word2 + " in the graph!";
+        }
+        if (bridgeWords.isEmpty()) {
+            return "No bridge words from " + word1 + " to " + word2 + "!";
+        }
+        return "The bridge words from " + word1 + " to " + word2 + " is(are): " + format();
+    }
+}
@@ -0,0 +1,183 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+//可由多个线程同时写入的有向图：节点集合使用ConcurrentHashMap，边按(源点, 终点)的哈希分到STRIPES个分段，
+//每个分段有自己的锁和邻接表，写入不同分段的线程互不竞争；同一源点的出边分散在各分段，高频词不会集中到一把锁上。freeze依次取得全部分段锁，
+//得到一致的CsrGraph快照，之后的写入不影响已冻结的快照
+public class ConcurrentGraph {
+    private static final int STRIPES = 64;
+
+    private final Set<String> nodeSet = ConcurrentHashMap.newKeySet();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder edgeCount = new LongAdder();
+    private volatile CsrGraph frozen;
+
+    public ConcurrentGraph() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    //一个分段：以源点为键的邻接表，只含落在本分段的出边，边权为长度1的数组，只在持有lock时读写
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<String, Map<String, long[]>> edges = new HashMap<>();
+    }
+
+    private Stripe stripe(String src, String dest) {
+        return stripe(31 * src.hashCode() + dest.hashCode());
+    }
+
+    private Stripe stripe(int h) {
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    //同样在分段锁内加入，避免freeze遍历节点集合时漏掉的节点又被它缓存下来
+    public void addNode(String node) {
+        Stripe stripe = stripe(node.hashCode());
+        stripe.lock.lock();
+        try {
+            if (nodeSet.add(node)) {
+                invalidate();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void addEdge(String src, String dest) {
+        addEdge(src, dest, 1);
+    }
+
+    //边不存在时创建，存在时权重加weight；两端节点自动加入
+    public void addEdge(String src, String dest, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight must be positive: " + weight);
+        }
+        accumulate(src, dest, weight);
+    }
+
+    //按相邻单词对加边，与Text2Graph一致；每个单词对单独加锁，freeze可能只看到其中一部分
+    public void addWords(List<String> words) {
+        for (int i = 0; i < words.size() - 1; i++) {
+            accumulate(words.get(i), words.get(i + 1), 1);
+        }
+    }
+
+    private void accumulate(String src, String dest, int weight) {
+        Stripe stripe = stripe(src, dest);
+        stripe.lock.lock();
+        try {
+            // 在分段锁内加入节点，持有全部分段锁的freeze看到的边两端一定已在节点集合中
+            nodeSet.add(src);
+            nodeSet.add(dest);
+            Map<String, long[]> dests = stripe.edges.computeIfAbsent(src, k -> new HashMap<>());
+            long[] w = dests.get(dest);
+            if (w == null) {
+                w = new long[1];
+                dests.put(dest, w);
+                edgeCount.increment();
+            }
+            w[0] += weight;
+            invalidate();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void invalidate() {
+        if (frozen != null) {
+            frozen = null;
+        }
+    }
+
+    public boolean containsNode(String node) {
+        return nodeSet.contains(node);
+    }
+
+    public int nodeCount() {
+        return nodeSet.size();
+    }
+
+    public long edgeCount() {
+        return edgeCount.sum();
+    }
+
+    //当前的边权，边不存在时返回0
+    public long weight(String src, String dest) {
+        Stripe stripe = stripe(src, dest);
+        stripe.lock.lock();
+        try {
+            Map<String, long[]> dests = stripe.edges.get(src);
+            long[] w = dests == null ? null : dests.get(dest);
+            return w == null ? 0 : w[0];
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    //按下标顺序取得全部分段锁后生成一致的只读快照，单词ID按字典序分配，结果与写入顺序和线程调度无关。
+    //没有新的写入时重复调用返回同一个快照
+    public CsrGraph freeze() {
+        CsrGraph snapshot = frozen;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            int locked = 0;
+            try {
+                for (; locked < STRIPES; locked++) {
+                    stripes[locked].lock.lock();
+                }
+                snapshot = frozen;
+                if (snapshot == null) {
+                    snapshot = build();
+                    frozen = snapshot;
+                }
+                return snapshot;
+            } finally {
+                while (locked > 0) {
+                    stripes[--locked].lock.unlock();
+                }
+            }
+        }
+    }
+
+    private CsrGraph build() {
+        List<String> words = new ArrayList<>(nodeSet);
+        Collections.sort(words);
+        WordDictionary dictionary = new WordDictionary(words.size());
+        BitSet nodes = new BitSet(words.size());
+        for (String word : words) {
+            nodes.set(dictionary.add(word));
+        }
+        int m = Math.toIntExact(edgeCount.sum());
+        int[] srcs = new int[m];
+        int[] dsts = new int[m];
+        int[] weights = new int[m];
+        int e = 0;
+        // 同一源点的出边可能分布在多个分段，但每条边只在一个分段中
+        for (Stripe stripe : stripes) {
+            for (Map.Entry<String, Map<String, long[]>> entry : stripe.edges.entrySet()) {
+                int src = dictionary.id(entry.getKey());
+                for (Map.Entry<String, long[]> weightEntry : entry.getValue().entrySet()) {
+                    srcs[e] = src;
+                    dsts[e] = dictionary.id(weightEntry.getKey());
+                    weights[e] = Math.toIntExact(weightEntry.getValue()[0]);
+                    e++;
+                }
+            }
+        }
+        return CsrGraph.fromEdges(dictionary, nodes, dictionary.size(), srcs, dsts, weights, e);
+    }
+}
@@ -0,0 +1,614 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+//只读的压缩稀疏行(CSR)图：单词映射为稠密ID，出边和入边各用offsets/targets/weights三个原始数组存储，
+//每行按目标ID升序排列。查询接口与Graph同名同返回值，但不向控制台打印
+public class CsrGraph {
+    private final WordDictionary dictionary;
+    private final BitSet nodes;
+    private final int[] nodeIds;
+
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    private volatile BridgeIndex bridgeIndex;
+    private volatile ShortestPathEngine pathEngine;
+    private volatile AliasWalker walker;
+    private volatile ReachabilityIndex reachability;
+    private volatile TextRewriter textRewriter;
+
+    CsrGraph(WordDictionary dictionary, BitSet nodes,
+             int[] outOffsets, int[] outTargets, int[] outWeights,
+             int[] inOffsets, int[] inSources, int[] inWeights) {
+        this.dictionary = dictionary;
+        this.nodes = nodes;
+        this.nodeIds = nodes.stream().toArray();
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+    }
+
+    //不含节点和边的CSR，dictionary中已有的单词保留ID
+    static CsrGraph empty(WordDictionary dictionary) {
+        return fromEdges(dictionary.snapshot(), new BitSet(), dictionary.size(), new int[0], new int[0], new int[0], 0);
+    }
+
+    //由边列表构建CSR，同一(src, dst)只允许出现一次
+    static CsrGraph fromEdges(WordDictionary dictionary, BitSet nodes, int n,
+                              int[] srcs, int[] dsts, int[] weights, int edgeCount) {
+        return fromEdges(dictionary, nodes, n, edgeCount, visitor -> {
+            for (int e = 0; e < edgeCount; e++) {
+                visitor.accept(srcs[e], dsts[e], weights[e]);
+            }
+        });
+    }
+
+    //分两遍访问边集合构建CSR：第一遍统计度数，第二遍直接填入CSR数组，不需要中间的边列表。
+    //edges每次调用都要按相同顺序访问同样的edgeCount条边
+    static CsrGraph fromEdges(WordDictionary dictionary, BitSet nodes, int n, int edgeCount,
+                              Consumer<OffHeapEdgeStore.EdgeVisitor> edges) {
+        int[] outOffsets = new int[n + 1];
+        int[] inOffsets = new int[n + 1];
+        edges.accept((src, dst, weight) -> {
+            outOffsets[src + 1]++;
+            inOffsets[dst + 1]++;
+        });
+        for (int i = 0; i < n; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        if (outOffsets[n] != edgeCount) {
+            throw new IllegalStateException("expected " + edgeCount + " edges, visited " + outOffsets[n]);
+        }
+        int[] outTargets = new int[edgeCount];
+        int[] outWeights = new int[edgeCount];
+        int[] inSources = new int[edgeCount];
+        int[] inWeights = new int[edgeCount];
+        int[] outFill = Arrays.copyOf(outOffsets, n);
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        edges.accept((src, dst, weight) -> {
+            int o = outFill[src]++;
+            outTargets[o] = dst;
+            outWeights[o] = weight;
+            int i = inFill[dst]++;
+            inSources[i] = src;
+            inWeights[i] = weight;
+        });
+        sortRows(outOffsets, outTargets, outWeights);
+        sortRows(inOffsets, inSources, inWeights);
+        return new CsrGraph(dictionary, nodes, outOffsets, outTargets, outWeights,
+                inOffsets, inSources, inWeights);
+    }
+
+    //把Graph写缓冲中的新节点和边权增量并入当前CSR得到新的CSR：没有变化的行整段复制，
+    //变化的行与按(src, dst)排序的增量逐项归并。新单词追加到graphDictionary末尾
+    CsrGraph merge(WordDictionary graphDictionary, Set<String> addedNodes,
+                   Map<String, Map<String, Integer>> increments) {
+        int[] addedNodeIds = new int[addedNodes.size()];
+        int a = 0;
+        for (String node : addedNodes) {
+            addedNodeIds[a++] = graphDictionary.add(node);
+        }
+        int m = 0;
+        for (Map<String, Integer> dests : increments.values()) {
+            m += dests.size();
+        }
+        int[] rows = new int[m];
+        int[] cols = new int[m];
+        int[] newWeights = new int[m];
+        int k = 0;
+        for (Map.Entry<String, Map<String, Integer>> entry : increments.entrySet()) {
+            int src = graphDictionary.add(entry.getKey());
+            for (Map.Entry<String, Integer> weightEntry : entry.getValue().entrySet()) {
+                rows[k] = src;
+                cols[k] = graphDictionary.add(weightEntry.getKey());
+                newWeights[k++] = weightEntry.getValue();
+            }
+        }
+        return mergeIncrements(graphDictionary, addedNodeIds, rows, cols, newWeights);
+    }
+
+    //把按单词ID给出的新节点和边权增量并入当前CSR，同一(src, dst)只允许出现一次，
+    //rows/cols/newWeights会被就地排序和改写
+    CsrGraph mergeIncrements(WordDictionary graphDictionary, int[] addedNodeIds,
+                             int[] rows, int[] cols, int[] newWeights) {
+        BitSet newNodes = (BitSet) nodes.clone();
+        for (int id : addedNodeIds) {
+            newNodes.set(id);
+        }
+        int m = rows.length;
+        int n = graphDictionary.size();
+        int[] inRows = cols.clone();
+        int[] inCols = rows.clone();
+        int[] inNewWeights = newWeights.clone();
+        sortByRow(n, rows, cols, newWeights);
+        sortByRow(n, inRows, inCols, inNewWeights);
+
+        // 增量加上原有权重
+        int edgeCount = edgeCount();
+        for (int i = 0; i < m; i++) {
+            int old = rows[i] < idCount() ? weight(rows[i], cols[i]) : 0;
+            newWeights[i] += old;
+            if (old == 0) {
+                edgeCount++;
+            }
+            inNewWeights[i] += inCols[i] < idCount() ? weight(inCols[i], inRows[i]) : 0;
+        }
+        int[] newOutOffsets = new int[n + 1];
+        int[] newOutTargets = new int[edgeCount];
+        int[] newOutWeights = new int[edgeCount];
+        mergeRows(outOffsets, outTargets, outWeights, rows, cols, newWeights,
+                newOutOffsets, newOutTargets, newOutWeights);
+        int[] newInOffsets = new int[n + 1];
+        int[] newInSources = new int[edgeCount];
+        int[] newInWeights = new int[edgeCount];
+        mergeRows(inOffsets, inSources, inWeights, inRows, inCols, inNewWeights,
+                newInOffsets, newInSources, newInWeights);
+        return new CsrGraph(graphDictionary.snapshot(), newNodes, newOutOffsets, newOutTargets, newOutWeights,
+                newInOffsets, newInSources, newInWeights);
+    }
+
+    //在当前CSR上应用一次增量修改得到新的CSR：变化的行与修改逐项归并，已经建好的桥接词索引和游走别名表
+    //只修补变化的部分后带到新图上，字典用O(1)的只读视图。
+    //仍然与图的大小成正比的部分：没有变化的行要整段复制到新的CSR数组（正反向各一次），
+    //节点位图要复制一次，已建好的别名表也要按新的行偏移整段复制；这些都是顺序内存复制，
+    //不做哈希或排序。其余的工作与修改的边数成正比
+    CsrGraph applyDelta(GraphDelta delta, WordDictionary newDictionary) {
+        int n = newDictionary.size();
+        BitSet newNodes = (BitSet) nodes.clone();
+        for (int id : delta.getAddedNodeIds()) {
+            newNodes.set(id);
+        }
+        for (int id : delta.getRemovedNodeIds()) {
+            newNodes.clear(id);
+        }
+
+        List<GraphDelta.EdgeChange> changes = delta.getEdgeChanges();
+        int m = changes.size();
+        int[] rows = new int[m];
+        int[] cols = new int[m];
+        int[] newWeights = new int[m];
+        int edgeCount = edgeCount();
+        for (int i = 0; i < m; i++) {
+            GraphDelta.EdgeChange change = changes.get(i);
+            rows[i] = change.getSrcId();
+            cols[i] = change.getDestId();
+            newWeights[i] = change.getNewWeight();
+            if (change.isAdded()) {
+                edgeCount++;
+            } else if (change.isRemoved()) {
+                edgeCount--;
+            }
+        }
+        int[] newOutOffsets = new int[n + 1];
+        int[] newOutTargets = new int[edgeCount];
+        int[] newOutWeights = new int[edgeCount];
+        mergeRows(outOffsets, outTargets, outWeights, rows, cols, newWeights,
+                newOutOffsets, newOutTargets, newOutWeights);
+
+        // 反向CSR需要按(destId, srcId)排序的修改序列：修改已按(srcId, destId)排好，
+        // 按(destId, 原下标)排序即可，下标与destId打包成long避免装箱
+        long[] order = new long[m];
+        for (int i = 0; i < m; i++) {
+            order[i] = (long) cols[i] << 32 | i;
+        }
+        Arrays.sort(order);
+        int[] inRows = new int[m];
+        int[] inCols = new int[m];
+        int[] inNewWeights = new int[m];
+        for (int i = 0; i < m; i++) {
+            int j = (int) order[i];
+            inRows[i] = cols[j];
+            inCols[i] = rows[j];
+            inNewWeights[i] = newWeights[j];
+        }
+        int[] newInOffsets = new int[n + 1];
+        int[] newInSources = new int[edgeCount];
+        int[] newInWeights = new int[edgeCount];
+        mergeRows(inOffsets, inSources, inWeights, inRows, inCols, inNewWeights,
+                newInOffsets, newInSources, newInWeights);
+
+        CsrGraph patched = new CsrGraph(newDictionary, newNodes, newOutOffsets, newOutTargets, newOutWeights,
+                newInOffsets, newInSources, newInWeights);
+        if (bridgeIndex != null) {
+            patched.bridgeIndex = bridgeIndex.patch(patched, delta);
+        }
+        if (walker != null) {
+            patched.walker = new AliasWalker(patched, walker, delta.changedSources());
+        }
+        return patched;
+    }
+
+    //把按(row, col)升序的修改归并进各行，newWeight为0表示删除
+    private static void mergeRows(int[] offsets, int[] targets, int[] weights,
+                                  int[] rows, int[] cols, int[] newWeights,
+                                  int[] newOffsets, int[] newTargets, int[] newWeights2) {
+        int oldN = offsets.length - 1;
+        int n = newOffsets.length - 1;
+        int pos = 0;
+        int c = 0;
+        for (int v = 0; v < n; v++) {
+            newOffsets[v] = pos;
+            int from = v < oldN ? offsets[v] : 0;
+            int to = v < oldN ? offsets[v + 1] : 0;
+            if (c == rows.length || rows[c] != v) {
+                System.arraycopy(targets, from, newTargets, pos, to - from);
+                System.arraycopy(weights, from, newWeights2, pos, to - from);
+                pos += to - from;
+                continue;
+            }
+            int e = from;
+            while (e < to || (c < rows.length && rows[c] == v)) {
+                boolean takeChange = c < rows.length && rows[c] == v && (e == to || cols[c] <= targets[e]);
+                if (!takeChange) {
+                    newTargets[pos] = targets[e];
+                    newWeights2[pos++] = weights[e++];
+                    continue;
+                }
+                if (e < to && cols[c] == targets[e]) {
+                    e++;
+                }
+                if (newWeights[c] > 0) {
+                    newTargets[pos] = cols[c];
+                    newWeights2[pos++] = newWeights[c];
+                }
+                c++;
+            }
+        }
+        newOffsets[n] = pos;
+    }
+
+    //把(row, col, value)三元组按(row, col)升序排列：先按行计数排序，再在行内排序
+    private static void sortByRow(int n, int[] rows, int[] cols, int[] values) {
+        int m = rows.length;
+        int[] offsets = new int[n + 1];
+        for (int row : rows) {
+            offsets[row + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] sortedCols = new int[m];
+        int[] sortedValues = new int[m];
+        for (int i = 0; i < m; i++) {
+            int p = fill[rows[i]]++;
+            sortedCols[p] = cols[i];
+            sortedValues[p] = values[i];
+        }
+        sortRows(offsets, sortedCols, sortedValues);
+        for (int v = 0; v < n; v++) {
+            Arrays.fill(rows, offsets[v], offsets[v + 1], v);
+        }
+        System.arraycopy(sortedCols, 0, cols, 0, m);
+        System.arraycopy(sortedValues, 0, values, 0, m);
+    }
+
+    //每行按邻居ID升序排序，ID与权重打包成long一起排序
+    private static void sortRows(int[] offsets, int[] targets, int[] weights) {
+        long[] packed = new long[0];
+        for (int v = 0; v + 1 < offsets.length; v++) {
+            int from = offsets[v];
+            int len = offsets[v + 1] - from;
+            if (len < 2) {
+                continue;
+            }
+            if (packed.length < len) {
+                packed = new long[len];
+            }
+            for (int k = 0; k < len; k++) {
+                packed[k] = ((long) targets[from + k] << 32) | (weights[from + k] & 0xffffffffL);
+            }
+            Arrays.sort(packed, 0, len);
+            for (int k = 0; k < len; k++) {
+                targets[from + k] = (int) (packed[k] >>> 32);
+                weights[from + k] = (int) packed[k];
+            }
+        }
+    }
+
+    public WordDictionary getDictionary() {
+        return dictionary;
+    }
+
+    //字典中的单词数，ID范围为[0, idCount())
+    public int idCount() {
+        return outOffsets.length - 1;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public int edgeCount() {
+        return outTargets.length;
+    }
+
+    //单词对应的ID，不在图中时返回-1
+    public int id(String word) {
+        int id = dictionary.id(word);
+        return id >= 0 && id < idCount() ? id : -1;
+    }
+
+    //按字符区间查询单词ID，不创建String；不在图中时返回-1
+    public int id(char[] chars, int offset, int length) {
+        int id = dictionary.find(chars, offset, length);
+        return id >= 0 && id < idCount() ? id : -1;
+    }
+
+    public String word(int id) {
+        return dictionary.word(id);
+    }
+
+    public boolean containsNode(int id) {
+        return id >= 0 && nodes.get(id);
+    }
+
+    public boolean containsNode(String word) {
+        return containsNode(id(word));
+    }
+
+    //按ID升序排列的节点ID，调用方不得修改
+    int[] nodeIds() {
+        return nodeIds;
+    }
+
+    public int outDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+
+    public int inDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+
+    //以下原始数组直接暴露给同包的索引和算法使用，调用方不得修改
+    int[] outOffsets() {
+        return outOffsets;
+    }
+
+    int[] outTargets() {
+        return outTargets;
+    }
+
+    int[] outWeights() {
+        return outWeights;
+    }
+
+    int[] inOffsets() {
+        return inOffsets;
+    }
+
+    int[] inSources() {
+        return inSources;
+    }
+
+    int[] inWeights() {
+        return inWeights;
+    }
+
+    //边(src, dst)在出边数组中的下标，不存在时返回-1
+    public int edgeIndex(int src, int dst) {
+        int index = Arrays.binarySearch(outTargets, outOffsets[src], outOffsets[src + 1], dst);
+        return index >= 0 ? index : -1;
+    }
+
+    public int weight(int src, int dst) {
+        int index = edgeIndex(src, dst);
+        return index >= 0 ? outWeights[index] : 0;
+    }
+
+    //桥接词索引，首次使用时构建
+    public BridgeIndex bridgeIndex() {
+        BridgeIndex index = bridgeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = bridgeIndex;
+                if (index == null) {
+                    index = new BridgeIndex(this);
+                    bridgeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    ///查询桥接词（bridge words），返回值与Graph.queryBridgeWords相同
+    public String queryBridgeWords(String word1, String word2) {
+        return bridgeIndex().query(word1, word2).format();
+    }
+
+    //基于桥接词查询生成新文本，输入按INPUT_text规则分词，需要时调用方先用address_file规范化
+    public String generateNewText(String inputext) {
+        return textRewriter().rewrite(inputext);
+    }
+
+    //文本改写器，首次使用时创建，桥接词缓存在同一快照的多次改写之间共享
+    public TextRewriter textRewriter() {
+        TextRewriter r = textRewriter;
+        if (r == null) {
+            synchronized (this) {
+                r = textRewriter;
+                if (r == null) {
+                    r = new TextRewriter(this);
+                    textRewriter = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    //点对点最短路径引擎，首次使用时创建
+    public ShortestPathEngine shortestPathEngine() {
+        ShortestPathEngine engine = pathEngine;
+        if (engine == null) {
+            synchronized (this) {
+                engine = pathEngine;
+                if (engine == null) {
+                    engine = new ShortestPathEngine(this);
+                    pathEngine = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    //最短路径，返回格式与Graph.calcShortestPath相同（从终点倒序到起点）
+    public String calcShortestPath(String start, String end) {
+        long startNanos = GraphMetrics.start();
+        try {
+            return shortestPathEngine().calcShortestPath(start, end);
+        } finally {
+            GraphMetrics.record(GraphMetrics.SHORTEST_PATH, startNanos);
+        }
+    }
+
+    String formatPath(int src, int dst, int[] prev, int length) {
+        StringBuilder path = new StringBuilder();
+        for (int node = dst; node != src; node = prev[node]) {
+            if (path.length() > 0) {
+                path.append("→");
+            }
+            path.append(dictionary.word(node));
+        }
+        path.append("→").append(dictionary.word(src));
+        return path + " (length: " + length + ")";
+    }
+
+    //强连通分量和可达性索引，首次使用时构建
+    public ReachabilityIndex reachability() {
+        ReachabilityIndex r = reachability;
+        if (r == null) {
+            synchronized (this) {
+                r = reachability;
+                if (r == null) {
+                    r = ReachabilityIndex.build(this);
+                    reachability = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    //别名表随机游走器，首次使用时构建
+    public AliasWalker walker() {
+        AliasWalker w = walker;
+        if (w == null) {
+            synchronized (this) {
+                w = walker;
+                if (w == null) {
+                    w = new AliasWalker(this);
+                    walker = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    //随机游走，遇到重复边或没有出边的节点时停止
+    public String randomWalk() {
+        return randomWalk(new Random());
+    }
+
+    public String randomWalk(RandomGenerator rand) {
+        return String.join(" -> ", walkWords(rand));
+    }
+
+    //随机游走经过的单词序列
+    public List<String> walkWords(RandomGenerator rand) {
+        return walker().walkWords(rand);
+    }
+
+    //有向图SVG，布局与原来的Graph.generateSVG相同（节点按HashSet的迭代顺序均匀分布在圆上），不写文件
+    public String generateSVG() {
+        int radius = 1200;
+        int centerX = 2560;
+        int centerY = 1600;
+        double angleStep = 2 * Math.PI / nodeIds.length;
+
+        Set<String> nodeSet = new HashSet<>();
+        for (int node : nodeIds) {
+            nodeSet.add(dictionary.word(node));
+        }
+        int n = idCount();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int i = 0;
+        for (String node : nodeSet) {
+            double angle = i * angleStep;
+            int id = dictionary.id(node);
+            xs[id] = centerX + radius * Math.cos(angle);
+            ys[id] = centerY + radius * Math.sin(angle);
+            i++;
+        }
+        return generateSVG(xs, ys, 5120, 3200);
+    }
+
+    //使用力导向布局的SVG
+    public String generateSVG(ForceLayout.Positions positions) {
+        return generateSVG(positions.getXs(), positions.getYs(), positions.getWidth(), positions.getHeight());
+    }
+
+    private String generateSVG(double[] xs, double[] ys, int width, int height) {
+        StringBuilder svg = new StringBuilder();
+        svg.append("<svg xmlns='http://www.w3.org/2000/svg' width='").append(width)
+                .append("' height='").append(height).append("'>");
+        int n = idCount();
+        int nodeRadius = 40;
+
+        // Draw edges with arrows
+        for (int src = 0; src < n; src++) {
+            for (int e = outOffsets[src]; e < outOffsets[src + 1]; e++) {
+                int dest = outTargets[e];
+                double dx = xs[dest] - xs[src];
+                double dy = ys[dest] - ys[src];
+                double angle = Math.atan2(dy, dx);
+                double midX = (xs[src] + xs[dest]) / 2;
+                double midY = (ys[src] + ys[dest]) / 2;
+
+                double arrowLength = 10;
+                double arrowX1 = midX - arrowLength * Math.cos(angle - Math.PI / 6);
+                double arrowY1 = midY - arrowLength * Math.sin(angle - Math.PI / 6);
+                double arrowX2 = midX - arrowLength * Math.cos(angle + Math.PI / 6);
+                double arrowY2 = midY - arrowLength * Math.sin(angle + Math.PI / 6);
+
+                svg.append("<line x1='").append(xs[src]).append("' y1='").append(ys[src])
+                        .append("' x2='").append(xs[dest]).append("' y2='").append(ys[dest])
+                        .append("' stroke='black'/>");
+                svg.append("<polygon points='").append(midX).append(",").append(midY)
+                        .append(" ").append(arrowX1).append(",").append(arrowY1)
+                        .append(" ").append(arrowX2).append(",").append(arrowY2)
+                        .append("' fill='black'/>");
+                svg.append("<text x='").append(midX + 5).append("' y='").append(midY - 5)
+                        .append("' fill='red' font-size='24'>").append(outWeights[e]).append("</text>");
+            }
+        }
+
+        // Draw nodes
+        for (int node : nodeIds) {
+            svg.append("<circle cx='").append(xs[node]).append("' cy='").append(ys[node])
+                    .append("' r='").append(nodeRadius).append("' fill='lightblue' stroke='black'/>");
+            svg.append("<text x='").append(xs[node]).append("' y='").append(ys[node])
+                    .append("' text-anchor='middle' dy='.3em' font-size='20'>").append(dictionary.word(node))
+                    .append("</text>");
+        }
+
+        svg.append("</svg>");
+        return svg.toString();
+    }
+}
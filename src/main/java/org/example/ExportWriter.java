@@ -0,0 +1,109 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+//导出用的缓冲写出器：直接把ASCII文本和数字编码进字节缓冲区，写满后刷到通道，不构造中间字符串
+final class ExportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+
+    ExportWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    ExportWriter ascii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            put((byte) s.charAt(i));
+        }
+        return this;
+    }
+
+    //写出单词，escapeXml为true时转义XML特殊字符，否则转义DOT字符串中的引号和反斜杠
+    ExportWriter word(String s, boolean escapeXml) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = s.substring(i, i + Character.charCount(s.codePointAt(i)))
+                        .getBytes(StandardCharsets.UTF_8);
+                for (byte b : bytes) {
+                    put(b);
+                }
+                i += Character.charCount(s.codePointAt(i)) - 1;
+            } else if (escapeXml && c == '&') {
+                ascii("&amp;");
+            } else if (escapeXml && c == '<') {
+                ascii("&lt;");
+            } else if (escapeXml && c == '>') {
+                ascii("&gt;");
+            } else if (escapeXml && c == '\'') {
+                ascii("&apos;");
+            } else if (escapeXml && c == '"') {
+                ascii("&quot;");
+            } else if (!escapeXml && (c == '"' || c == '\\')) {
+                put((byte) '\\');
+                put((byte) c);
+            } else {
+                put((byte) c);
+            }
+        }
+        return this;
+    }
+
+    ExportWriter num(long value) throws IOException {
+        if (value < 0) {
+            put((byte) '-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (n > 0) {
+            put(digits[--n]);
+        }
+        return this;
+    }
+
+    //保留两位小数
+    ExportWriter num(double value) throws IOException {
+        long scaled = Math.round(value * 100);
+        if (scaled < 0) {
+            put((byte) '-');
+            scaled = -scaled;
+        }
+        num(scaled / 100);
+        put((byte) '.');
+        long fraction = scaled % 100;
+        put((byte) ('0' + fraction / 10));
+        put((byte) ('0' + fraction % 10));
+        return this;
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
@@ -0,0 +1,375 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+//力导向布局（Fruchterman-Reingold）：斥力用Barnes-Hut四叉树近似，每轮O(n log n)；
+//引力沿边（不区分方向）计算。每个节点的受力独立求和，可以并行且结果与线程调度无关，
+//给定种子和迭代次数时结果确定；设置了时间上限时在超时后提前结束
+public class ForceLayout {
+    private int iterations = 200;
+    private long timeLimitMillis = Long.MAX_VALUE;
+    private long seed = 42;
+    private double theta = 0.8;
+    private boolean parallel = true;
+    private int width = 5120;
+    private int height = 3200;
+    private int margin = 60;
+
+    public ForceLayout iterations(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations must not be negative: " + iterations);
+        }
+        this.iterations = iterations;
+        return this;
+    }
+
+    public ForceLayout timeLimitMillis(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+        return this;
+    }
+
+    public ForceLayout seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    //Barnes-Hut的开角阈值，越小越精确
+    public ForceLayout theta(double theta) {
+        this.theta = theta;
+        return this;
+    }
+
+    public ForceLayout parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    public ForceLayout canvas(int width, int height, int margin) {
+        this.width = width;
+        this.height = height;
+        this.margin = margin;
+        return this;
+    }
+
+    //布局结果：按节点ID索引的坐标，已缩放到画布内
+    public static final class Positions {
+        private final double[] xs;
+        private final double[] ys;
+        private final int width;
+        private final int height;
+        private final int iterations;
+
+        Positions(double[] xs, double[] ys, int width, int height, int iterations) {
+            this.xs = xs;
+            this.ys = ys;
+            this.width = width;
+            this.height = height;
+            this.iterations = iterations;
+        }
+
+        public double[] getXs() {
+            return xs;
+        }
+
+        public double[] getYs() {
+            return ys;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        //实际完成的迭代次数
+        public int getIterations() {
+            return iterations;
+        }
+    }
+
+    public Positions run(CsrGraph graph) {
+        int n = graph.idCount();
+        int[] nodeIds = graph.nodeIds();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] dx = new double[n];
+        double[] dy = new double[n];
+        SplittableRandom rand = new SplittableRandom(seed);
+        for (int node : nodeIds) {
+            xs[node] = rand.nextDouble() * width;
+            ys[node] = rand.nextDouble() * height;
+        }
+        if (nodeIds.length == 0) {
+            return new Positions(xs, ys, width, height, 0);
+        }
+
+        double k = Math.sqrt((double) width * height / nodeIds.length);
+        double k2 = k * k;
+        double temperature = width / 10.0;
+        double cooling = temperature / Math.max(iterations, 1);
+        QuadTree tree = new QuadTree(nodeIds.length);
+        // 每个线程复用的遍历栈和受力累加器，迭代过程中不再按节点分配
+        ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+        long deadline = timeLimitMillis == Long.MAX_VALUE ? Long.MAX_VALUE
+                : System.currentTimeMillis() + timeLimitMillis;
+
+        int done = 0;
+        for (; done < iterations && System.currentTimeMillis() < deadline; done++) {
+            tree.build(nodeIds, xs, ys);
+            double t = temperature;
+            IntStream range = IntStream.range(0, nodeIds.length);
+            (parallel ? range.parallel() : range).forEach(i -> {
+                int v = nodeIds[i];
+                Scratch s = scratch.get();
+                double[] force = s.force;
+                force[0] = 0;
+                force[1] = 0;
+                tree.repulsion(v, xs[v], ys[v], k2, theta, s);
+                attraction(graph, v, xs, ys, k, force);
+                dx[v] = force[0];
+                dy[v] = force[1];
+            });
+            for (int v : nodeIds) {
+                double length = Math.sqrt(dx[v] * dx[v] + dy[v] * dy[v]);
+                if (length > 0) {
+                    double step = Math.min(length, t);
+                    xs[v] += dx[v] / length * step;
+                    ys[v] += dy[v] / length * step;
+                }
+            }
+            temperature = Math.max(temperature - cooling, 1.0);
+        }
+        fit(nodeIds, xs, ys);
+        return new Positions(xs, ys, width, height, done);
+    }
+
+    //引力：出边和入边都参与，权重越大拉得越紧
+    private static void attraction(CsrGraph graph, int v, double[] xs, double[] ys, double k, double[] force) {
+        int[] outOffsets = graph.outOffsets();
+        int[] outTargets = graph.outTargets();
+        int[] outWeights = graph.outWeights();
+        for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+            pull(v, outTargets[e], outWeights[e], xs, ys, k, force);
+        }
+        int[] inOffsets = graph.inOffsets();
+        int[] inSources = graph.inSources();
+        int[] inWeights = graph.inWeights();
+        for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+            pull(v, inSources[e], inWeights[e], xs, ys, k, force);
+        }
+    }
+
+    private static void pull(int v, int u, int weight, double[] xs, double[] ys, double k, double[] force) {
+        if (u == v) {
+            return;
+        }
+        double ddx = xs[u] - xs[v];
+        double ddy = ys[u] - ys[v];
+        double distance = Math.sqrt(ddx * ddx + ddy * ddy);
+        double f = distance / k * (1 + Math.log(weight));
+        force[0] += ddx * f;
+        force[1] += ddy * f;
+    }
+
+    //把坐标等比缩放到画布内
+    private void fit(int[] nodeIds, double[] xs, double[] ys) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int v : nodeIds) {
+            minX = Math.min(minX, xs[v]);
+            maxX = Math.max(maxX, xs[v]);
+            minY = Math.min(minY, ys[v]);
+            maxY = Math.max(maxY, ys[v]);
+        }
+        double scale = Math.min((width - 2.0 * margin) / Math.max(maxX - minX, 1e-9),
+                (height - 2.0 * margin) / Math.max(maxY - minY, 1e-9));
+        for (int v : nodeIds) {
+            xs[v] = margin + (xs[v] - minX) * scale;
+            ys[v] = margin + (ys[v] - minY) * scale;
+        }
+    }
+
+    private static final class Scratch {
+        int[] stack = new int[64 * 4];
+        final double[] force = new double[2];
+    }
+
+    //用扁平数组存储的四叉树，插入和遍历都不递归
+    private static final class QuadTree {
+        private static final int MAX_DEPTH = 48;
+
+        private int[] children;
+        private int[] body;
+        private double[] mass;
+        private double[] comX;
+        private double[] comY;
+        private double[] cellX;
+        private double[] cellY;
+        private double[] cellSize;
+        private int cells;
+
+        QuadTree(int expectedBodies) {
+            allocate(Math.max(4 * expectedBodies, 16));
+        }
+
+        private void allocate(int capacity) {
+            children = new int[4 * capacity];
+            body = new int[capacity];
+            mass = new double[capacity];
+            comX = new double[capacity];
+            comY = new double[capacity];
+            cellX = new double[capacity];
+            cellY = new double[capacity];
+            cellSize = new double[capacity];
+        }
+
+        private void grow() {
+            int capacity = body.length * 2;
+            children = Arrays.copyOf(children, 4 * capacity);
+            body = Arrays.copyOf(body, capacity);
+            mass = Arrays.copyOf(mass, capacity);
+            comX = Arrays.copyOf(comX, capacity);
+            comY = Arrays.copyOf(comY, capacity);
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            cellSize = Arrays.copyOf(cellSize, capacity);
+        }
+
+        private int newCell(double x, double y, double size) {
+            if (cells == body.length) {
+                grow();
+            }
+            int c = cells++;
+            Arrays.fill(children, 4 * c, 4 * c + 4, -1);
+            body[c] = -1;
+            mass[c] = 0;
+            comX[c] = 0;
+            comY[c] = 0;
+            cellX[c] = x;
+            cellY[c] = y;
+            cellSize[c] = size;
+            return c;
+        }
+
+        void build(int[] nodeIds, double[] xs, double[] ys) {
+            double minX = Double.MAX_VALUE;
+            double minY = Double.MAX_VALUE;
+            double maxX = -Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for (int v : nodeIds) {
+                minX = Math.min(minX, xs[v]);
+                maxX = Math.max(maxX, xs[v]);
+                minY = Math.min(minY, ys[v]);
+                maxY = Math.max(maxY, ys[v]);
+            }
+            cells = 0;
+            newCell(minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1e-6) * 1.0001);
+            for (int v : nodeIds) {
+                insert(v, xs, ys);
+            }
+            // 质心先按质量加权累加，最后统一归一化
+            for (int c = 0; c < cells; c++) {
+                if (mass[c] > 0) {
+                    comX[c] /= mass[c];
+                    comY[c] /= mass[c];
+                }
+            }
+        }
+
+        private void insert(int v, double[] xs, double[] ys) {
+            double x = xs[v];
+            double y = ys[v];
+            int c = 0;
+            for (int depth = 0; ; depth++) {
+                mass[c] += 1;
+                comX[c] += x;
+                comY[c] += y;
+                if (children[4 * c] < 0 && children[4 * c + 1] < 0
+                        && children[4 * c + 2] < 0 && children[4 * c + 3] < 0) {
+                    if (body[c] < 0 && mass[c] == 1) {
+                        body[c] = v;
+                        return;
+                    }
+                    if (depth >= MAX_DEPTH) {
+                        // 重合的点聚合在同一个叶子里
+                        return;
+                    }
+                    if (body[c] >= 0) {
+                        // 把原有的点下移到子格
+                        int old = body[c];
+                        body[c] = -1;
+                        int q = quadrant(c, xs[old], ys[old]);
+                        int child = child(c, q);
+                        mass[child] = 1;
+                        comX[child] = xs[old];
+                        comY[child] = ys[old];
+                        body[child] = old;
+                    }
+                }
+                c = child(c, quadrant(c, x, y));
+            }
+        }
+
+        private int quadrant(int c, double x, double y) {
+            double half = cellSize[c] / 2;
+            return (x >= cellX[c] + half ? 1 : 0) + (y >= cellY[c] + half ? 2 : 0);
+        }
+
+        private int child(int c, int q) {
+            int child = children[4 * c + q];
+            if (child < 0) {
+                double half = cellSize[c] / 2;
+                child = newCell(cellX[c] + ((q & 1) != 0 ? half : 0), cellY[c] + ((q & 2) != 0 ? half : 0), half);
+                children[4 * c + q] = child;
+            }
+            return child;
+        }
+
+        //斥力k²/d累加到force，远处的格子用其质心近似
+        void repulsion(int v, double x, double y, double k2, double theta, Scratch s) {
+            int[] stack = s.stack;
+            double[] force = s.force;
+            int top = 0;
+            stack[top++] = 0;
+            double theta2 = theta * theta;
+            while (top > 0) {
+                int c = stack[--top];
+                if (mass[c] == 0 || body[c] == v) {
+                    continue;
+                }
+                double ddx = x - comX[c];
+                double ddy = y - comY[c];
+                double d2 = ddx * ddx + ddy * ddy;
+                boolean leaf = children[4 * c] < 0 && children[4 * c + 1] < 0
+                        && children[4 * c + 2] < 0 && children[4 * c + 3] < 0;
+                if (leaf || cellSize[c] * cellSize[c] < theta2 * d2) {
+                    if (d2 < 1e-9) {
+                        // 重合时按ID给一个确定的微小偏移
+                        ddx = ((v * 0x9E3779B9) >>> 16) % 7 - 3 + 0.5;
+                        ddy = ((v * 0x85EBCA6B) >>> 16) % 7 - 3 + 0.5;
+                        d2 = ddx * ddx + ddy * ddy;
+                    }
+                    double f = k2 * mass[c] / d2;
+                    force[0] += ddx * f;
+                    force[1] += ddy * f;
+                    continue;
+                }
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                    s.stack = stack;
+                }
+                for (int q = 0; q < 4; q++) {
+                    if (children[4 * c + q] >= 0) {
+                        stack[top++] = children[4 * c + q];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+//一次增量修改的结果：新增/删除的节点和权重发生变化的边，节点同时给出单词和ID
+public final class GraphDelta {
+    private final List<String> addedNodes;
+    private final List<String> removedNodes;
+    private final int[] addedNodeIds;
+    private final int[] removedNodeIds;
+    private final List<EdgeChange> edgeChanges;
+
+    GraphDelta(List<String> addedNodes, int[] addedNodeIds,
+               List<String> removedNodes, int[] removedNodeIds,
+               List<EdgeChange> edgeChanges) {
+        this.addedNodes = Collections.unmodifiableList(addedNodes);
+        this.addedNodeIds = addedNodeIds;
+        this.removedNodes = Collections.unmodifiableList(removedNodes);
+        this.removedNodeIds = removedNodeIds;
+        this.edgeChanges = Collections.unmodifiableList(edgeChanges);
+    }
+
+    public List<String> getAddedNodes() {
+        return addedNodes;
+    }
+
+    public List<String> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    public int[] getAddedNodeIds() {
+        return addedNodeIds.clone();
+    }
+
+    public int[] getRemovedNodeIds() {
+        return removedNodeIds.clone();
+    }
+
+    //每条边最多出现一次，按(srcId, destId)升序
+    public List<EdgeChange> getEdgeChanges() {
+        return edgeChanges;
+    }
+
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && edgeChanges.isEmpty();
+    }
+
+    //出边发生变化的源节点ID
+    public BitSet changedSources() {
+        BitSet sources = new BitSet();
+        for (EdgeChange change : edgeChanges) {
+            sources.set(change.getSrcId());
+        }
+        return sources;
+    }
+
+    @Override
+    public String toString() {
+        return "GraphDelta{addedNodes=" + addedNodes + ", removedNodes=" + removedNodes
+                + ", edgeChanges=" + edgeChanges + "}";
+    }
+
+    //一条边的权重变化，oldWeight为0表示新边，newWeight为0表示边被删除
+    public static final class EdgeChange {
+        private final String src;
+        private final String dest;
+        private final int srcId;
+        private final int destId;
+        private final int oldWeight;
+        private final int newWeight;
+
+        EdgeChange(String src, String dest, int srcId, int destId, int oldWeight, int newWeight) {
+            this.src = src;
+            this.dest = dest;
+            this.srcId = srcId;
+            this.destId = destId;
+            this.oldWeight = oldWeight;
+            this.newWeight = newWeight;
+        }
+
+        public String getSrc() {
+            return src;
+        }
+
+        public String getDest() {
+            return dest;
+        }
+
+        public int getSrcId() {
+            return srcId;
+        }
+
+        public int getDestId() {
+            return destId;
+        }
+
+        public int getOldWeight() {
+            return oldWeight;
+        }
+
+        public int getNewWeight() {
+            return newWeight;
+        }
+
+        public boolean isAdded() {
+            return oldWeight == 0;
+        }
+
+        public boolean isRemoved() {
+            return newWeight == 0;
+        }
+
+        @Override
+        public String toString() {
+            return src + " -> " + dest + " (" + oldWeight + " -> " + newWeight + ")";
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//流式导出SVG、Graphviz DOT和GraphML，边读CSR边写出，内存占用与输出大小无关。
+//可选的细节层次过滤：只保留度数最高的N个节点，以及权重不小于阈值的边
+public class GraphExporter {
+    public enum Format { SVG, HTML, DOT, GRAPHML }
+
+    private final CsrGraph graph;
+    private int topNodes = Integer.MAX_VALUE;
+    private int minWeight = 1;
+    private double[] xs;
+    private double[] ys;
+    private int width = 5120;
+    private int height = 3200;
+
+    public GraphExporter(CsrGraph graph) {
+        this.graph = graph;
+    }
+
+    //只导出总度数（入度+出度）最高的n个节点
+    public GraphExporter topNodes(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("topNodes must be positive: " + n);
+        }
+        this.topNodes = n;
+        return this;
+    }
+
+    //只导出权重不小于minWeight的边
+    public GraphExporter minWeight(int minWeight) {
+        this.minWeight = minWeight;
+        return this;
+    }
+
+    //使用外部布局（按节点ID索引的坐标）和画布大小，默认与generateSVG相同的圆形布局
+    public GraphExporter layout(double[] xs, double[] ys, int width, int height) {
+        if (xs.length < graph.idCount() || ys.length < graph.idCount()) {
+            throw new IllegalArgumentException("layout must cover all " + graph.idCount() + " node ids");
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    public GraphExporter layout(ForceLayout.Positions positions) {
+        return layout(positions.getXs(), positions.getYs(), positions.getWidth(), positions.getHeight());
+    }
+
+    public void export(Format format, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            export(format, channel);
+        }
+    }
+
+    public void export(Format format, WritableByteChannel channel) throws IOException {
+        boolean[] included = selectNodes();
+        try (ExportWriter out = new ExportWriter(channel)) {
+            switch (format) {
+                case SVG:
+                    writeSvg(out, included);
+                    break;
+                case HTML:
+                    out.ascii("<!DOCTYPE html>\n<html>\n<head>\n<title>SVG Output</title>\n</head>\n<body>\n");
+                    writeSvg(out, included);
+                    out.ascii("\n</body>\n</html>");
+                    break;
+                case DOT:
+                    writeDot(out, included);
+                    break;
+                case GRAPHML:
+                    writeGraphMl(out, included);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown format: " + format);
+            }
+        }
+    }
+
+    private boolean[] selectNodes() {
+        int[] nodeIds = graph.nodeIds();
+        boolean[] included = new boolean[graph.idCount()];
+        if (topNodes >= nodeIds.length) {
+            for (int node : nodeIds) {
+                included[node] = true;
+            }
+            return included;
+        }
+        // 度数和ID打包成long排序，取最大的topNodes个
+        long[] keys = new long[nodeIds.length];
+        for (int i = 0; i < nodeIds.length; i++) {
+            int node = nodeIds[i];
+            keys[i] = ((long) (graph.outDegree(node) + graph.inDegree(node)) << 32) | node;
+        }
+        Arrays.sort(keys);
+        for (int i = keys.length - topNodes; i < keys.length; i++) {
+            included[(int) keys[i]] = true;
+        }
+        return included;
+    }
+
+    private double[][] circleLayout(boolean[] included) {
+        int count = 0;
+        for (boolean b : included) {
+            if (b) {
+                count++;
+            }
+        }
+        double[] xs = new double[graph.idCount()];
+        double[] ys = new double[graph.idCount()];
+        double angleStep = 2 * Math.PI / count;
+        int i = 0;
+        for (int node : graph.nodeIds()) {
+            if (included[node]) {
+                double angle = i++ * angleStep;
+                xs[node] = width / 2.0 + 1200 * Math.cos(angle);
+                ys[node] = height / 2.0 + 1200 * Math.sin(angle);
+            }
+        }
+        return new double[][]{xs, ys};
+    }
+
+    private void writeSvg(ExportWriter out, boolean[] included) throws IOException {
+        double[] xs = this.xs;
+        double[] ys = this.ys;
+        if (xs == null) {
+            double[][] positions = circleLayout(included);
+            xs = positions[0];
+            ys = positions[1];
+        }
+        out.ascii("<svg xmlns='http://www.w3.org/2000/svg' width='").num(width)
+                .ascii("' height='").num(height).ascii("'>");
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        double arrowLength = 10;
+        for (int src = 0; src < graph.idCount(); src++) {
+            if (!included[src]) {
+                continue;
+            }
+            for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+                int dest = targets[e];
+                if (!included[dest] || weights[e] < minWeight) {
+                    continue;
+                }
+                double angle = Math.atan2(ys[dest] - ys[src], xs[dest] - xs[src]);
+                double midX = (xs[src] + xs[dest]) / 2;
+                double midY = (ys[src] + ys[dest]) / 2;
+                out.ascii("<line x1='").num(xs[src]).ascii("' y1='").num(ys[src])
+                        .ascii("' x2='").num(xs[dest]).ascii("' y2='").num(ys[dest])
+                        .ascii("' stroke='black'/>");
+                out.ascii("<polygon points='").num(midX).ascii(",").num(midY)
+                        .ascii(" ").num(midX - arrowLength * Math.cos(angle - Math.PI / 6))
+                        .ascii(",").num(midY - arrowLength * Math.sin(angle - Math.PI / 6))
+                        .ascii(" ").num(midX - arrowLength * Math.cos(angle + Math.PI / 6))
+                        .ascii(",").num(midY - arrowLength * Math.sin(angle + Math.PI / 6))
+                        .ascii("' fill='black'/>");
+                out.ascii("<text x='").num(midX + 5).ascii("' y='").num(midY - 5)
+                        .ascii("' fill='red' font-size='24'>").num(weights[e]).ascii("</text>");
+            }
+        }
+        for (int node : graph.nodeIds()) {
+            if (!included[node]) {
+                continue;
+            }
+            out.ascii("<circle cx='").num(xs[node]).ascii("' cy='").num(ys[node])
+                    .ascii("' r='40' fill='lightblue' stroke='black'/>");
+            out.ascii("<text x='").num(xs[node]).ascii("' y='").num(ys[node])
+                    .ascii("' text-anchor='middle' dy='.3em' font-size='20'>")
+                    .word(graph.word(node), true).ascii("</text>");
+        }
+        out.ascii("</svg>");
+    }
+
+    private void writeDot(ExportWriter out, boolean[] included) throws IOException {
+        out.ascii("digraph G {\n");
+        for (int node : graph.nodeIds()) {
+            if (included[node]) {
+                out.ascii("  \"").word(graph.word(node), false).ascii("\";\n");
+            }
+        }
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        for (int src = 0; src < graph.idCount(); src++) {
+            if (!included[src]) {
+                continue;
+            }
+            for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+                if (!included[targets[e]] || weights[e] < minWeight) {
+                    continue;
+                }
+                out.ascii("  \"").word(graph.word(src), false).ascii("\" -> \"")
+                        .word(graph.word(targets[e]), false).ascii("\" [label=").num(weights[e])
+                        .ascii(", weight=").num(weights[e]).ascii("];\n");
+            }
+        }
+        out.ascii("}\n");
+    }
+
+    private void writeGraphMl(ExportWriter out, boolean[] included) throws IOException {
+        out.ascii("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .ascii("<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n")
+                .ascii("  <key id=\"label\" for=\"node\" attr.name=\"label\" attr.type=\"string\"/>\n")
+                .ascii("  <key id=\"weight\" for=\"edge\" attr.name=\"weight\" attr.type=\"int\"/>\n")
+                .ascii("  <graph id=\"G\" edgedefault=\"directed\">\n");
+        for (int node : graph.nodeIds()) {
+            if (included[node]) {
+                out.ascii("    <node id=\"n").num(node).ascii("\"><data key=\"label\">")
+                        .word(graph.word(node), true).ascii("</data></node>\n");
+            }
+        }
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        for (int src = 0; src < graph.idCount(); src++) {
+            if (!included[src]) {
+                continue;
+            }
+            for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+                if (!included[targets[e]] || weights[e] < minWeight) {
+                    continue;
+                }
+                out.ascii("    <edge source=\"n").num(src).ascii("\" target=\"n").num(targets[e])
+                        .ascii("\"><data key=\"weight\">").num(weights[e]).ascii("</data></edge>\n");
+            }
+        }
+        out.ascii("  </graph>\n</graphml>\n");
+    }
+}
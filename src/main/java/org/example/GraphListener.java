@@ -0,0 +1,7 @@
+package org.example;
+
+//图被增量修改后的回调，在修改线程上同步调用
+@FunctionalInterface
+public interface GraphListener {
+    void graphChanged(GraphDelta delta);
+}
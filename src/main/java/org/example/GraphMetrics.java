@@ -0,0 +1,177 @@
+package org.example;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//各项图操作的计数和延迟统计，全部使用无锁的计数器和直方图，可在生产环境常开。
+//通过registerMBeans注册到JMX（org.example:type=GraphMetrics），或用startReporter定期输出文本
+public final class GraphMetrics {
+    private static volatile boolean enabled = true;
+
+    private static final LongAdder INGESTED_TOKENS = new LongAdder();
+    private static final LongAdder INGESTED_EDGES = new LongAdder();
+    private static final LongAdder INGEST_NANOS = new LongAdder();
+
+    public static final Histogram BRIDGE_QUERY = new Histogram("bridgeQuery", "ns");
+    public static final Histogram TEXT_GENERATION = new Histogram("textGeneration", "ns");
+    public static final Histogram TEXT_GENERATION_WORDS = new Histogram("textGenerationWords", "words");
+    public static final Histogram SHORTEST_PATH = new Histogram("shortestPath", "ns");
+    public static final Histogram SHORTEST_PATH_TREE = new Histogram("shortestPathTree", "ns");
+    public static final Histogram NODES_SETTLED = new Histogram("nodesSettled", "nodes");
+    public static final Histogram RANDOM_WALK = new Histogram("randomWalk", "ns");
+    public static final Histogram WALK_STEPS = new Histogram("walkSteps", "steps");
+
+    private static final Histogram[] HISTOGRAMS = {
+            BRIDGE_QUERY, TEXT_GENERATION, TEXT_GENERATION_WORDS, SHORTEST_PATH, SHORTEST_PATH_TREE,
+            NODES_SETTLED, RANDOM_WALK, WALK_STEPS
+    };
+
+    private GraphMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        GraphMetrics.enabled = enabled;
+    }
+
+    //计时起点；关闭统计时返回0，对应的record调用会被忽略
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void record(Histogram histogram, long startNanos) {
+        if (startNanos != 0) {
+            histogram.recordSince(startNanos);
+        }
+    }
+
+    public static void recordValue(Histogram histogram, long value) {
+        if (enabled) {
+            histogram.record(value);
+        }
+    }
+
+    public static void recordIngest(long tokens, long edges, long startNanos) {
+        if (startNanos != 0) {
+            INGESTED_TOKENS.add(tokens);
+            INGESTED_EDGES.add(edges);
+            INGEST_NANOS.add(System.nanoTime() - startNanos);
+        }
+    }
+
+    public static long getIngestedTokens() {
+        return INGESTED_TOKENS.sum();
+    }
+
+    public static long getIngestedEdges() {
+        return INGESTED_EDGES.sum();
+    }
+
+    //按建图实际耗时计算的吞吐量
+    public static double getTokensPerSecond() {
+        long nanos = INGEST_NANOS.sum();
+        return nanos == 0 ? 0 : INGESTED_TOKENS.sum() * 1e9 / nanos;
+    }
+
+    public static double getEdgesPerSecond() {
+        long nanos = INGEST_NANOS.sum();
+        return nanos == 0 ? 0 : INGESTED_EDGES.sum() * 1e9 / nanos;
+    }
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-20s tokens=%d edges=%d tokens/s=%.0f edges/s=%.0f%n",
+                "ingest", getIngestedTokens(), getIngestedEdges(), getTokensPerSecond(), getEdgesPerSecond()));
+        for (Histogram histogram : HISTOGRAMS) {
+            sb.append(histogram.summary()).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    public static void reset() {
+        INGESTED_TOKENS.reset();
+        INGESTED_EDGES.reset();
+        INGEST_NANOS.reset();
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    //注册到平台MBeanServer，重复调用时忽略已注册的MBean
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName summary = new ObjectName("org.example:type=GraphMetrics,name=summary");
+            if (!server.isRegistered(summary)) {
+                server.registerMBean(new Bean(), summary);
+            }
+            for (Histogram histogram : HISTOGRAMS) {
+                ObjectName name = new ObjectName("org.example:type=GraphMetrics,name=" + histogram.getName());
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(histogram, name);
+                }
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("failed to register graph metrics MBeans", e);
+        }
+    }
+
+    //每隔periodSeconds秒把report()输出到out，返回的调度器由调用方关闭
+    public static ScheduledExecutorService startReporter(long periodSeconds, PrintStream out) {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "graph-metrics-reporter");
+            t.setDaemon(true);
+            return t;
+        });
+        reporter.scheduleAtFixedRate(() -> out.print(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return reporter;
+    }
+
+    private static final class Bean implements GraphMetricsMXBean {
+        @Override
+        public boolean isEnabled() {
+            return GraphMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean enabled) {
+            GraphMetrics.setEnabled(enabled);
+        }
+
+        @Override
+        public long getIngestedTokens() {
+            return GraphMetrics.getIngestedTokens();
+        }
+
+        @Override
+        public long getIngestedEdges() {
+            return GraphMetrics.getIngestedEdges();
+        }
+
+        @Override
+        public double getTokensPerSecond() {
+            return GraphMetrics.getTokensPerSecond();
+        }
+
+        @Override
+        public double getEdgesPerSecond() {
+            return GraphMetrics.getEdgesPerSecond();
+        }
+
+        @Override
+        public String getReport() {
+            return GraphMetrics.report();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.example;
+
+//通过JMX暴露的建图吞吐量和整体报告
+public interface GraphMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getIngestedTokens();
+
+    long getIngestedEdges();
+
+    double getTokensPerSecond();
+
+    double getEdgesPerSecond();
+
+    String getReport();
+}
@@ -0,0 +1,157 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+//HTTP查询服务，所有请求读同一个不可变的CsrGraph快照，新图通过publish原子替换，读者从不阻塞。
+//接口（均返回UTF-8纯文本）：
+//  GET  /bridge?word1=..&word2=..   桥接词
+//  GET  /newtext?text=..            生成新文本，也可以POST正文
+//  GET  /path?start=..&end=..       最短路径
+//  GET  /walk[?seed=..]             随机游走
+//请求由固定大小的平台线程池处理，各查询按线程复用的缓冲区（ThreadLocal）数量不超过线程数
+public class GraphServer {
+    private static final int MAX_BODY = 1 << 20;
+
+    private final AtomicReference<CsrGraph> snapshot;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public GraphServer(CsrGraph graph, InetSocketAddress address) throws IOException {
+        this(graph, address, defaultExecutor());
+    }
+
+    public GraphServer(CsrGraph graph, InetSocketAddress address, ExecutorService executor) throws IOException {
+        this.snapshot = new AtomicReference<>(graph);
+        this.executor = executor;
+        this.server = HttpServer.create(address, 1024);
+        server.setExecutor(executor);
+        server.createContext("/bridge", exchange -> handle(exchange, (csr, params) ->
+                csr.bridgeIndex().query(require(params, "word1"), require(params, "word2")).toString()));
+        server.createContext("/newtext", exchange -> handle(exchange, (csr, params) ->
+                csr.generateNewText(Main.address_file(require(params, "text")))));
+        server.createContext("/path", exchange -> handle(exchange, (csr, params) ->
+                csr.calcShortestPath(require(params, "start"), require(params, "end"))));
+        server.createContext("/walk", exchange -> handle(exchange, (csr, params) -> {
+            String seed = params.get("seed");
+            SplittableRandom rand = seed == null ? new SplittableRandom() : new SplittableRandom(Long.parseLong(seed));
+            return csr.randomWalk(rand);
+        }));
+    }
+
+    //每个CPU一个线程：查询都是CPU密集的，更多线程只会多占用与图规模成正比的缓冲区
+    static ExecutorService defaultExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread t = new Thread(r, "graph-server");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public CsrGraph current() {
+        return snapshot.get();
+    }
+
+    //发布新的快照，之后到达的请求使用新图，进行中的请求继续使用旧图
+    public void publish(CsrGraph graph) {
+        snapshot.set(graph);
+    }
+
+    //跟随可变图：图的CSR每次变化后发布其最新快照。addEdge的修改在写缓冲合并后才可见，
+    //需要立即生效时在修改后调用graph.freeze()
+    public void follow(Main.Graph graph) {
+        graph.addSnapshotListener(this::publish);
+        publish(graph.freeze());
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        String answer(CsrGraph graph, Map<String, String> params);
+    }
+
+    private void handle(HttpExchange exchange, Query query) throws IOException {
+        try {
+            int status = 200;
+            String body;
+            try {
+                Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    params.putIfAbsent("text", readBody(exchange.getRequestBody()));
+                }
+                body = query.answer(snapshot.get(), params);
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = e.getMessage();
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String require(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        byte[] bytes = in.readNBytes(MAX_BODY + 1);
+        if (bytes.length > MAX_BODY) {
+            throw new IllegalArgumentException("request body larger than " + MAX_BODY + " bytes");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.zip.CRC32;
+
+//CSR图的二进制快照。文件结构（大端序）：
+//  头部：magic, version, idCount, edgeCount, nodeCount, 保留字段, 字典字节数(long), 正文CRC32(long)
+//  正文：字典偏移int[idCount+1], 字典UTF-8字节, 节点ID int[nodeCount],
+//        出边offsets/targets/weights, 入边offsets/sources/weights
+//读取时按窗口内存映射文件，整型数组直接批量拷贝，只有字典需要逐个创建字符串
+public final class GraphSnapshot {
+    public static final int MAGIC = 0x57475246; // "WGRF"
+    public static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int WINDOW = 1 << 30;
+    private static final int WRITE_BUFFER = 1 << 20;
+
+    private GraphSnapshot() {
+    }
+
+    public static void write(CsrGraph graph, Path path) throws IOException {
+        int n = graph.idCount();
+        WordDictionary dictionary = graph.getDictionary();
+        byte[][] words = new byte[n][];
+        int[] wordOffsets = new int[n + 1];
+        long dictionaryBytes = 0;
+        for (int id = 0; id < n; id++) {
+            words[id] = dictionary.word(id).getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += words[id].length;
+            if (dictionaryBytes > Integer.MAX_VALUE) {
+                throw new IOException("dictionary too large for snapshot: " + dictionaryBytes + " bytes");
+            }
+            wordOffsets[id + 1] = (int) dictionaryBytes;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+            putInts(channel, buffer, crc, wordOffsets);
+            for (byte[] word : words) {
+                for (int i = 0; i < word.length; ) {
+                    if (!buffer.hasRemaining()) {
+                        drain(channel, buffer, crc);
+                    }
+                    int len = Math.min(buffer.remaining(), word.length - i);
+                    buffer.put(word, i, len);
+                    i += len;
+                }
+            }
+            putInts(channel, buffer, crc, graph.nodeIds());
+            putInts(channel, buffer, crc, graph.outOffsets());
+            putInts(channel, buffer, crc, graph.outTargets());
+            putInts(channel, buffer, crc, graph.outWeights());
+            putInts(channel, buffer, crc, graph.inOffsets());
+            putInts(channel, buffer, crc, graph.inSources());
+            putInts(channel, buffer, crc, graph.inWeights());
+            drain(channel, buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(graph.edgeCount())
+                    .putInt(graph.nodeCount()).putInt(0).putLong(dictionaryBytes).putLong(crc.getValue());
+            header.flip();
+            channel.position(0);
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+        }
+    }
+
+    public static CsrGraph read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("not a graph snapshot (file too short): " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("not a graph snapshot (bad magic): " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported graph snapshot version " + version
+                        + " (expected " + VERSION + "): " + path);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            int nodeCount = header.getInt();
+            header.getInt();
+            long dictionaryBytes = header.getLong();
+            long expectedCrc = header.getLong();
+            long expectedSize = HEADER_SIZE + 4L * (n + 1) + dictionaryBytes
+                    + 4L * nodeCount + 2 * 4L * (n + 1) + 4 * 4L * m;
+            if (channel.size() != expectedSize) {
+                throw new IOException("corrupt graph snapshot: size " + channel.size()
+                        + " does not match header (" + expectedSize + "): " + path);
+            }
+
+            CRC32 crc = new CRC32();
+            long pos = HEADER_SIZE;
+            int[] wordOffsets = new int[n + 1];
+            pos = readInts(channel, pos, wordOffsets, crc);
+            byte[] bytes = new byte[(int) dictionaryBytes];
+            pos = readBytes(channel, pos, bytes, crc);
+            int[] nodeIds = new int[nodeCount];
+            pos = readInts(channel, pos, nodeIds, crc);
+            int[] outOffsets = new int[n + 1];
+            pos = readInts(channel, pos, outOffsets, crc);
+            int[] outTargets = new int[m];
+            pos = readInts(channel, pos, outTargets, crc);
+            int[] outWeights = new int[m];
+            pos = readInts(channel, pos, outWeights, crc);
+            int[] inOffsets = new int[n + 1];
+            pos = readInts(channel, pos, inOffsets, crc);
+            int[] inSources = new int[m];
+            pos = readInts(channel, pos, inSources, crc);
+            int[] inWeights = new int[m];
+            readInts(channel, pos, inWeights, crc);
+            if (crc.getValue() != expectedCrc) {
+                throw new IOException("corrupt graph snapshot: checksum mismatch: " + path);
+            }
+
+            WordDictionary dictionary = new WordDictionary(n);
+            for (int id = 0; id < n; id++) {
+                String word = new String(bytes, wordOffsets[id], wordOffsets[id + 1] - wordOffsets[id],
+                        StandardCharsets.UTF_8);
+                if (dictionary.add(word) != id) {
+                    throw new IOException("corrupt graph snapshot: duplicate word '" + word + "': " + path);
+                }
+            }
+            BitSet nodes = new BitSet(n);
+            for (int id : nodeIds) {
+                nodes.set(id);
+            }
+            return new CsrGraph(dictionary, nodes, outOffsets, outTargets, outWeights,
+                    inOffsets, inSources, inWeights);
+        }
+    }
+
+    private static void putInts(FileChannel channel, ByteBuffer buffer, CRC32 crc, int[] values) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            if (buffer.remaining() < 4) {
+                drain(channel, buffer, crc);
+            }
+            int len = Math.min(buffer.remaining() / 4, values.length - i);
+            buffer.asIntBuffer().put(values, i, len);
+            buffer.position(buffer.position() + len * 4);
+            i += len;
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    //按不超过WINDOW字节的窗口映射并批量拷贝int数组，返回读取后的位置
+    private static long readInts(FileChannel channel, long pos, int[] values, CRC32 crc) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            int len = Math.min(WINDOW / 4, values.length - i);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, 4L * len);
+            crc.update(window.duplicate());
+            IntBuffer ints = window.asIntBuffer();
+            ints.get(values, i, len);
+            i += len;
+            pos += 4L * len;
+        }
+        return pos;
+    }
+
+    private static long readBytes(FileChannel channel, long pos, byte[] values, CRC32 crc) throws IOException {
+        for (int i = 0; i < values.length; ) {
+            int len = Math.min(WINDOW, values.length - i);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+            crc.update(window.duplicate());
+            window.get(values, i, len);
+            i += len;
+            pos += len;
+        }
+        return pos;
+    }
+}
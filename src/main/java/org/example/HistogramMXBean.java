@@ -0,0 +1,20 @@
+package org.example;
+
+//通过JMX暴露的直方图属性
+public interface HistogramMXBean {
+    String getUnit();
+
+    long getCount();
+
+    double getMean();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getMax();
+
+    void reset();
+}
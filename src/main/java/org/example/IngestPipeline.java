@@ -0,0 +1,385 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//多文件建图流水线：读文件 -> address_file规范化 -> 分词 -> 计数写入ConcurrentGraph。
+//文件按块读入，流水线中同时存在的块按展开后（文本、规范化副本、分词结果）的估计内存限制在bufferBytes以内，
+//阶段之间是有界队列，下游处理不过来时读线程阻塞；每个阶段的线程数可单独设置。
+//默认每个文件单独成段，不在文件之间连边；joinFiles时按文件顺序把前一个文件的末词连到后一个文件的首词，
+//等价于把所有文件依次拼接后再建图
+public class IngestPipeline {
+    private int readers = 2;
+    private int normalizers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int tokenizers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private int counters = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private long bufferBytes = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 8);
+    private boolean joinFiles;
+    private long progressMillis;
+    private PrintStream progressOut = System.err;
+
+    private final LongAdder filesDone = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder tokensCounted = new LongAdder();
+
+    public IngestPipeline readers(int readers) {
+        this.readers = positive("readers", readers);
+        return this;
+    }
+
+    public IngestPipeline normalizers(int normalizers) {
+        this.normalizers = positive("normalizers", normalizers);
+        return this;
+    }
+
+    public IngestPipeline tokenizers(int tokenizers) {
+        this.tokenizers = positive("tokenizers", tokenizers);
+        return this;
+    }
+
+    public IngestPipeline counters(int counters) {
+        this.counters = positive("counters", counters);
+        return this;
+    }
+
+    //读入但还没有计数完成的块展开后的估计内存上限，块的大小随之取为它的几十分之一
+    public IngestPipeline bufferBytes(long bufferBytes) {
+        if (bufferBytes < 1024) {
+            throw new IllegalArgumentException("bufferBytes must be at least 1024: " + bufferBytes);
+        }
+        this.bufferBytes = bufferBytes;
+        return this;
+    }
+
+    public IngestPipeline joinFiles(boolean joinFiles) {
+        this.joinFiles = joinFiles;
+        return this;
+    }
+
+    //每隔millis毫秒向out输出一次进度，0表示不输出
+    public IngestPipeline progress(long millis, PrintStream out) {
+        this.progressMillis = millis;
+        this.progressOut = out;
+        return this;
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    //root下相对路径匹配glob的普通文件，按路径排序
+    public static List<Path> listFiles(Path root, String glob) throws IOException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(root.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static final class Item {
+        final int file;
+        //文件内的块号，读阶段按块切分文件
+        final int chunk;
+        //占用的缓冲额度，单位KB
+        int permits;
+        String text;
+        List<String> words;
+
+        Item(int file, int chunk) {
+            this.file = file;
+            this.chunk = chunk;
+        }
+    }
+
+    private static final Item END = new Item(-1, -1);
+
+    @FunctionalInterface
+    private interface Sink {
+        void put(Item item) throws InterruptedException;
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Item item, Sink out) throws IOException, InterruptedException;
+    }
+
+    //一块原始字节在流水线中最多同时占用的内存约为字节数的这么多倍：解码和规范化后的文本各一份，
+    //分词结果每个单词约50字节（String对象、内部数组和列表引用），平均每5~6个输入字节一个单词
+    private static final int EXPANSION = 12;
+
+    public ConcurrentGraph run(List<Path> files) throws IOException {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        run(files, graph);
+        return graph;
+    }
+
+    public void run(List<Path> files, ConcurrentGraph graph) throws IOException {
+        long start = GraphMetrics.start();
+        long tokensBefore = tokensCounted.sum();
+        LongAdder pairs = new LongAdder();
+        // 每块按展开后的大小占用budget，块的大小使缓冲中至少能同时容纳几块；
+        // 每个文件在读阶段切成块，超大的文件也不会整份读入
+        int budgetKb = (int) Math.min(Integer.MAX_VALUE, bufferBytes >> 10);
+        Semaphore budget = new Semaphore(budgetKb);
+        int chunkBytes = (int) Math.min(64L << 20, Math.max(64, bufferBytes / EXPANSION / 4));
+        int[] chunkCounts = new int[files.size()];
+        // 每块的首词和末词，键为(文件, 块号)，块与块、文件与文件之间的边在最后按顺序补上
+        Map<Long, String[]> bounds = new ConcurrentHashMap<>();
+        // 每个文件还未计数完成的块数，读线程处理文件期间额外持有1
+        AtomicIntegerArray pending = new AtomicIntegerArray(files.size());
+        BlockingQueue<Item> paths = new ArrayBlockingQueue<>(2 * readers);
+        BlockingQueue<Item> raw = new ArrayBlockingQueue<>(2 * normalizers);
+        BlockingQueue<Item> normalized = new ArrayBlockingQueue<>(2 * tokenizers);
+        BlockingQueue<Item> tokenized = new ArrayBlockingQueue<>(2 * counters);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+
+        stage("ingest-read", readers, paths, raw, normalizers, budget, failure, threads, (item, out) -> {
+            pending.set(item.file, 1);
+            chunkCounts[item.file] = readChunks(files.get(item.file), item.file, chunkBytes, budgetKb,
+                    budget, failure, chunk -> {
+                        pending.incrementAndGet(item.file);
+                        out.put(chunk);
+                    });
+            if (pending.decrementAndGet(item.file) == 0) {
+                filesDone.increment();
+            }
+        });
+        stage("ingest-normalize", normalizers, raw, normalized, tokenizers, budget, failure, threads, (item, out) -> {
+            item.text = Main.address_file(item.text);
+            out.put(item);
+        });
+        stage("ingest-tokenize", tokenizers, normalized, tokenized, counters, budget, failure, threads, (item, out) -> {
+            List<String> words = new ArrayList<>();
+            for (String word : item.text.split(" +")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+            item.words = words;
+            item.text = null;
+            out.put(item);
+        });
+        stage("ingest-count", counters, tokenized, null, 0, budget, failure, threads, (item, out) -> {
+            List<String> words = item.words;
+            if (!words.isEmpty()) {
+                bounds.put((long) item.file << 32 | item.chunk,
+                        new String[]{words.get(0), words.get(words.size() - 1)});
+                graph.addWords(words);
+                tokensCounted.add(words.size());
+                pairs.add(words.size() - 1);
+            }
+            release(budget, item);
+            if (pending.decrementAndGet(item.file) == 0) {
+                filesDone.increment();
+            }
+        });
+
+        ScheduledExecutorService reporter = null;
+        if (progressMillis > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ingest-progress");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(() -> progressOut.println(progress(files.size())),
+                    progressMillis, progressMillis, TimeUnit.MILLISECONDS);
+        }
+        try {
+            for (int i = 0; i < files.size() && failure.get() == null; i++) {
+                paths.put(new Item(i, -1));
+            }
+            for (int i = 0; i < readers; i++) {
+                paths.put(END);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new IOException("ingestion interrupted", e);
+        } finally {
+            if (reporter != null) {
+                reporter.shutdownNow();
+            }
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) error).getCause();
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error != null) {
+            throw new IOException("ingestion failed", error);
+        }
+        // 同一文件相邻块的末词和首词总要连边；joinFiles时文件之间也连
+        String previous = null;
+        for (int i = 0; i < files.size(); i++) {
+            if (!joinFiles) {
+                previous = null;
+            }
+            for (int c = 0; c < chunkCounts[i]; c++) {
+                String[] words = bounds.get((long) i << 32 | c);
+                if (words == null) {
+                    continue;
+                }
+                if (previous != null) {
+                    graph.addEdge(previous, words[0]);
+                    pairs.increment();
+                }
+                previous = words[1];
+            }
+        }
+        GraphMetrics.recordIngest(tokensCounted.sum() - tokensBefore, pairs.sum(), start);
+        if (progressMillis > 0) {
+            progressOut.println(progress(files.size()));
+        }
+    }
+
+    //把文件按约chunkBytes字节切块交给out，返回块数。块只在非字母字节之后切开，单词不会跨块；
+    //多字节UTF-8字符可能被切开，但它们在规范化时本来就都变成分隔符。每块先取得缓冲额度再读入
+    private int readChunks(Path path, int file, int chunkBytes, int budgetKb, Semaphore budget,
+                           AtomicReference<Throwable> failure, Sink out) throws IOException, InterruptedException {
+        int chunks = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long pos = 0;
+            byte[] carry = new byte[0];
+            while ((pos < size || carry.length > 0) && failure.get() == null) {
+                int length = (int) Math.min(chunkBytes, size - pos);
+                int permits = (int) Math.min(budgetKb, ((long) (carry.length + length) * EXPANSION + 1023) >> 10);
+                budget.acquire(permits);
+                byte[] bytes;
+                try {
+                    bytes = Arrays.copyOf(carry, carry.length + length);
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes, carry.length, length);
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, pos + buffer.position() - carry.length) < 0) {
+                            throw new IOException("file shrank while reading: " + path);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    budget.release(permits);
+                    throw e;
+                }
+                pos += length;
+                bytesRead.add(length);
+                int cut = bytes.length;
+                if (pos < size) {
+                    while (cut > 0 && isLetter(bytes[cut - 1])) {
+                        cut--;
+                    }
+                    if (cut == 0) {
+                        // 整块都在一个单词内，接着读下一块
+                        carry = bytes;
+                        budget.release(permits);
+                        continue;
+                    }
+                }
+                carry = Arrays.copyOfRange(bytes, cut, bytes.length);
+                Item chunk = new Item(file, chunks++);
+                chunk.permits = permits;
+                chunk.text = new String(bytes, 0, cut, StandardCharsets.UTF_8);
+                out.put(chunk);
+            }
+        }
+        return chunks;
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    //启动一个阶段的workers个线程；每个线程退出时（包括因Error退出）都计数，最后一个退出的线程向下游放入
+    //downstreamWorkers个结束标记。出错后继续消费输入但不再处理，丢弃的块归还缓冲额度，避免上游永远阻塞
+    private static void stage(String name, int workers, BlockingQueue<Item> in, BlockingQueue<Item> out,
+                              int downstreamWorkers, Semaphore budget, AtomicReference<Throwable> failure,
+                              List<Thread> threads, Step step) {
+        AtomicInteger alive = new AtomicInteger(workers);
+        for (int w = 0; w < workers; w++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    for (Item item = in.take(); item != END; item = in.take()) {
+                        if (failure.get() != null) {
+                            release(budget, item);
+                            continue;
+                        }
+                        try {
+                            step.apply(item, out == null ? null : out::put);
+                        } catch (InterruptedException e) {
+                            throw e;
+                        } catch (IOException e) {
+                            failure.compareAndSet(null, new UncheckedIOException(e));
+                            release(budget, item);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                            release(budget, item);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (alive.decrementAndGet() == 0 && out != null) {
+                        try {
+                            for (int i = 0; i < downstreamWorkers; i++) {
+                                out.put(END);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            }, name + "-" + w);
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    private static void release(Semaphore budget, Item item) {
+        if (item.permits > 0) {
+            budget.release(item.permits);
+            item.permits = 0;
+        }
+    }
+
+    public String progress(int totalFiles) {
+        return String.format(Locale.ROOT, "ingest: %d/%d files, %.1f MB read, %d tokens",
+                filesDone.sum(), totalFiles, bytesRead.sum() / 1e6, tokensCounted.sum());
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import java.util.Arrays;
+
+//以节点ID为元素、int为键的二叉最小堆，支持decrease-key；pos记录每个节点在堆中的位置，
+//clear只重置仍在堆中的节点，因此可以在多次查询之间复用而不必每次分配或整体清零
+final class IntIndexedHeap {
+    private int[] heap;
+    private int[] keys;
+    private int[] pos;
+    private int size;
+
+    IntIndexedHeap(int capacity) {
+        heap = new int[capacity];
+        keys = new int[capacity];
+        pos = new int[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > pos.length) {
+            int old = pos.length;
+            heap = Arrays.copyOf(heap, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            pos = Arrays.copyOf(pos, capacity);
+            Arrays.fill(pos, old, capacity, -1);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            pos[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    int minKey() {
+        return keys[heap[0]];
+    }
+
+    //插入节点，已在堆中且新键更小时执行decrease-key
+    void insertOrDecrease(int node, int key) {
+        int i = pos[node];
+        if (i < 0) {
+            i = size++;
+            heap[i] = node;
+            pos[node] = i;
+        } else if (key >= keys[node]) {
+            return;
+        }
+        keys[node] = key;
+        siftUp(i);
+    }
+
+    int pollMin() {
+        int min = heap[0];
+        pos[min] = -1;
+        int last = heap[--size];
+        if (size > 0) {
+            heap[0] = last;
+            pos[last] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int i) {
+        int node = heap[i];
+        int key = keys[node];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (keys[p] <= key) {
+                break;
+            }
+            heap[i] = p;
+            pos[p] = i;
+            i = parent;
+        }
+        heap[i] = node;
+        pos[node] = i;
+    }
+
+    private void siftDown(int i) {
+        int node = heap[i];
+        int key = keys[node];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]]) {
+                child = right;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = node;
+        pos[node] = i;
+    }
+}
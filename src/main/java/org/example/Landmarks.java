@@ -0,0 +1,196 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+//ALT（A*、landmark、三角不等式）预处理：选出若干地标，保存每个节点到地标和从地标出发的最短距离，
+//查询时用 max(d(L,t)-d(L,v), d(v,L)-d(t,L)) 作为v到t距离的下界。表按节点交错存放，一次下界计算只访问连续内存。
+//地标按轮选择：每轮取与已有地标距离最远的若干节点，各地标的正向、反向Dijkstra并行计算。
+//表的大小受内存预算限制，超出时减少地标数
+public class Landmarks {
+    public static final int UNREACHABLE = ShortestPathTree.UNREACHABLE;
+
+    private final CsrGraph graph;
+    private final int[] landmarks;
+    private final int[] fromLandmark;
+    private final int[] toLandmark;
+
+    private Landmarks(CsrGraph graph, int[] landmarks, int[] fromLandmark, int[] toLandmark) {
+        this.graph = graph;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    //最多选count个地标，距离表总大小不超过memoryBudgetBytes
+    public static Landmarks select(CsrGraph graph, int count, long memoryBudgetBytes) {
+        int n = graph.idCount();
+        int[] nodeIds = graph.nodeIds();
+        long perLandmark = 8L * Math.max(n, 1);
+        int k = (int) Math.min(Math.min(count, memoryBudgetBytes / perLandmark),
+                Math.min(nodeIds.length, Integer.MAX_VALUE / Math.max(n, 1)));
+        if (k <= 0) {
+            return new Landmarks(graph, new int[0], new int[0], new int[0]);
+        }
+
+        // 每个地标的Dijkstra结果算完后立即写入交错表的第i列，临时数组随即丢弃，
+        // 峰值只比距离表多出并行计算中的若干个int[n]
+        int stride = k;
+        int[] fromLandmark = new int[n * stride];
+        int[] toLandmark = new int[n * stride];
+        int[] chosen = new int[k];
+        boolean[] isLandmark = new boolean[n];
+        // 第一个地标取出入度之和最大的节点
+        int first = nodeIds[0];
+        for (int v : nodeIds) {
+            if (graph.outDegree(v) + graph.inDegree(v) > graph.outDegree(first) + graph.inDegree(first)) {
+                first = v;
+            }
+        }
+        chosen[0] = first;
+        isLandmark[first] = true;
+        int selected = 0;
+        int round = 1;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        // spread[v]为v到已选地标的最小往返距离，越大越远
+        long[] spread = new long[n];
+        Arrays.fill(spread, Long.MAX_VALUE);
+        while (true) {
+            int lo = selected;
+            int hi = selected + round;
+            IntStream.range(0, 2 * (hi - lo)).parallel().forEach(task -> {
+                int i = lo + task / 2;
+                if (task % 2 == 0) {
+                    scatter(distances(n, chosen[i], graph.outOffsets(), graph.outTargets(), graph.outWeights()),
+                            fromLandmark, stride, i);
+                } else {
+                    scatter(distances(n, chosen[i], graph.inOffsets(), graph.inSources(), graph.inWeights()),
+                            toLandmark, stride, i);
+                }
+            });
+            selected = hi;
+            if (selected == k) {
+                break;
+            }
+            for (int v : nodeIds) {
+                for (int i = lo; i < hi; i++) {
+                    spread[v] = Math.min(spread[v], (long) fromLandmark[v * stride + i] + toLandmark[v * stride + i]);
+                }
+            }
+            round = Math.min(Math.min(parallelism, k - selected), selected);
+            int picked = pickFarthest(nodeIds, spread, isLandmark, chosen, selected, round);
+            if (picked == 0) {
+                k = selected;
+                break;
+            }
+            round = picked;
+        }
+
+        int[] landmarkIds = Arrays.copyOf(chosen, k);
+        if (k < stride) {
+            return new Landmarks(graph, landmarkIds, compact(fromLandmark, n, stride, k),
+                    compact(toLandmark, n, stride, k));
+        }
+        return new Landmarks(graph, landmarkIds, fromLandmark, toLandmark);
+    }
+
+    private static void scatter(int[] distances, int[] table, int stride, int column) {
+        for (int v = 0, t = column; v < distances.length; v++, t += stride) {
+            table[t] = distances[v];
+        }
+    }
+
+    //地标没有选满时只保留每个节点的前k列
+    private static int[] compact(int[] table, int n, int stride, int k) {
+        int[] result = new int[n * k];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(table, v * stride, result, v * k, k);
+        }
+        return result;
+    }
+
+    //选出spread最大的至多count个非地标节点，写入chosen[offset..]，返回选出的个数
+    private static int pickFarthest(int[] nodeIds, long[] spread, boolean[] isLandmark,
+                                    int[] chosen, int offset, int count) {
+        int picked = 0;
+        for (; picked < count; picked++) {
+            int best = -1;
+            for (int v : nodeIds) {
+                if (!isLandmark[v] && (best < 0 || spread[v] > spread[best])) {
+                    best = v;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            isLandmark[best] = true;
+            chosen[offset + picked] = best;
+        }
+        return picked;
+    }
+
+    private static int[] distances(int n, int source, int[] offsets, int[] targets, int[] weights) {
+        int[] distances = new int[n];
+        Arrays.fill(distances, UNREACHABLE);
+        distances[source] = 0;
+        IntIndexedHeap heap = new IntIndexedHeap(n);
+        heap.insertOrDecrease(source, 0);
+        while (!heap.isEmpty()) {
+            int node = heap.pollMin();
+            int distance = distances[node];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                int newDistance = distance + weights[e];
+                if (newDistance < distances[neighbor]) {
+                    distances[neighbor] = newDistance;
+                    heap.insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+        return distances;
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int count() {
+        return landmarks.length;
+    }
+
+    public int[] landmarkIds() {
+        return landmarks.clone();
+    }
+
+    //距离表占用的字节数
+    public long bytes() {
+        return 4L * (fromLandmark.length + toLandmark.length);
+    }
+
+    //v到t最短距离的下界；能证明v到不了t时返回UNREACHABLE
+    public int lowerBound(int v, int t) {
+        int k = landmarks.length;
+        int bound = 0;
+        for (int i = 0, vi = v * k, ti = t * k; i < k; i++, vi++, ti++) {
+            int fromV = fromLandmark[vi];
+            int fromT = fromLandmark[ti];
+            if (fromV != UNREACHABLE) {
+                // 地标能到v却到不了t，说明v也到不了t
+                if (fromT == UNREACHABLE) {
+                    return UNREACHABLE;
+                }
+                bound = Math.max(bound, fromT - fromV);
+            }
+            int toT = toLandmark[ti];
+            int toV = toLandmark[vi];
+            if (toT != UNREACHABLE) {
+                // t能到地标而v不能，说明v到不了t
+                if (toV == UNREACHABLE) {
+                    return UNREACHABLE;
+                }
+                bound = Math.max(bound, toV - toT);
+            }
+        }
+        return bound;
+    }
+}
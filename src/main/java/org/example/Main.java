@@ -1,26 +1,93 @@
 package org.example;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.Scanner;
 import java.util.ArrayList;
-import java.io.FileWriter;
+import java.awt.Desktop;
+import java.awt.GraphicsEnvironment;
+import java.nio.charset.StandardCharsets;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 
 
 public class Main {
+    //Graph写缓冲至少攒到这么多条边才合并进CSR
+    static final int FLUSH_THRESHOLD = 1 << 16;
+
     public class Graph {
+        //写缓冲：上次freeze之后新加的节点和边权增量，freeze时并入CSR后清空
         private Set<String> nodeSet;
         private Map<String, Map<String, Integer>> edgeSet;
+        private int pendingEdges;
+        //单词ID字典，只增不减，保证多次freeze得到的ID一致
+        private final WordDictionary dictionary;
+        //只读的CSR形式，是图的主要存储，查询都在其上执行；写缓冲不为空时它不含最近的修改
+        private CsrGraph frozen;
+        //按源点缓存的最短路径树，随frozen一起失效
+        private final ShortestPathCache pathCache = new ShortestPathCache();
+        private PageRank.Scores ranks;
+        private SuccessorIndex successorIndex;
+        private int landmarkCount;
+        private long landmarkBudget;
+        private ShortestPathEngine landmarkEngine;
+        private final List<GraphListener> listeners = new CopyOnWriteArrayList<>();
+        private final List<Consumer<CsrGraph>> snapshotListeners = new CopyOnWriteArrayList<>();
 
         public Graph() {
             nodeSet = new HashSet<String>();
             edgeSet = new HashMap<String, Map<String, Integer>>();
+            dictionary = new WordDictionary();
+            frozen = CsrGraph.empty(dictionary);
+        }
+
+        //直接以快照中的CSR作为存储，CSR数组共享；快照的字典是只读的，复制一份作为本图的可修改字典
+        public Graph(CsrGraph snapshot) {
+            nodeSet = new HashSet<String>();
+            edgeSet = new HashMap<String, Map<String, Integer>>();
+            dictionary = snapshot.getDictionary().copy();
+            frozen = snapshot;
+        }
+
+        //把当前图保存为二进制快照
+        public void saveSnapshot(Path path) throws IOException {
+            GraphSnapshot.write(freeze(), path);
+        }
+
+        boolean containsNode(String node) {
+            return nodeSet.contains(node) || frozen.containsNode(node);
         }
 
         public void addNode(String node) {
-            nodeSet.add(node);
+            if (!frozen.containsNode(node) && nodeSet.add(node)) {
+                if (successorIndex != null) {
+                    successorIndex.addWord(dictionary.add(node));
+                }
+            }
+        }
+
+        //把写缓冲并入CSR，返回的CsrGraph可以脱离Graph独立使用
+        public CsrGraph freeze() {
+            if (!nodeSet.isEmpty() || !edgeSet.isEmpty()) {
+                frozen = frozen.merge(dictionary, nodeSet, edgeSet);
+                nodeSet = new HashSet<String>();
+                edgeSet = new HashMap<String, Map<String, Integer>>();
+                pendingEdges = 0;
+                snapshotChanged();
+            }
+            return frozen;
+        }
+
+        //写缓冲中的边数超过CSR的边数时提前合并，缓冲的大小不超过CSR，合并的总代价与边数成线性
+        private void edgeBuffered() {
+            if (++pendingEdges > Math.max(FLUSH_THRESHOLD, frozen.edgeCount())) {
+                freeze();
+            }
         }
 
         public void addEdge(String src, String dest) {
@@ -35,229 +102,336 @@ public class Main {
             } else {
                 // 如果不存在，添加新的边，权重为1
                 edgeSet.get(src).put(dest, 1);
+                edgeBuffered();
+            }
+            if (successorIndex != null) {
+                successorIndex.increment(dictionary.add(src), dictionary.add(dest), 1);
             }
         }
 
-
-
-
-        //有向图表示
-        public void showDirectedGraph(Graph graph) {
-            // 打印节点集合
-            System.out.println("Node Set:");
-            System.out.println(graph.nodeSet);
-
-            // 打印带权重的边
-            for (Map.Entry<String, Map<String, Integer>> entry : graph.edgeSet.entrySet()) {
-                System.out.println("Node: " + entry.getKey());
-                for (Map.Entry<String, Integer> weightEntry : entry.getValue().entrySet()) {
-                    System.out.println(" -> " + weightEntry.getKey() + " (weight: " + weightEntry.getValue() + ")");
-                }
+        //按给定权重累加边，用于合并并行构建得到的部分图
+        public void addEdge(String src, String dest, int weight) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("weight must be positive: " + weight);
+            }
+            Map<String, Integer> dests = edgeSet.get(src);
+            if (dests == null) {
+                dests = new HashMap<>();
+                edgeSet.put(src, dests);
+            }
+            Integer old = dests.get(dest);
+            dests.put(dest, old == null ? weight : old + weight);
+            if (successorIndex != null) {
+                successorIndex.increment(dictionary.add(src), dictionary.add(dest), weight);
+            }
+            if (old == null) {
+                edgeBuffered();
             }
         }
 
-        ///查询桥接词（bridge words）
-        public String queryBridgeWords(String word1, String word2) {
-            //首先检查word1，word2是否存在
-            if (!nodeSet.contains(word1) || !nodeSet.contains(word2)) {
-                System.out.println("No " + word1 + " or " + word2 + " in the graph!");
-                return " ";
-            }
+        //单词字典，只应在修改图的线程上写入
+        WordDictionary dictionary() {
+            return dictionary;
+        }
 
-            Set<String> bridgeWords = new HashSet<>();
-            for (Map.Entry<String, Map<String, Integer>> entry : edgeSet.entrySet()) {
-                String src = entry.getKey();
-                Map<String, Integer> dests = entry.getValue();
-                if (src.equals(word1)) {
-                    for (String dest : dests.keySet()) {
-                        if (edgeSet.containsKey(dest) && edgeSet.get(dest).containsKey(word2)) {
-                            bridgeWords.add(dest);
-                        }
+        //并入一批按单词ID给出的节点和边权增量（并行建图使用），同一(src, dst)只允许出现一次：
+        //先合并写缓冲，再与CSR逐行归并，不经过写缓冲的哈希表
+        void addCounts(int[] nodeIds, int[] srcs, int[] dsts, int[] weights) {
+            CsrGraph before = freeze();
+            if (successorIndex != null) {
+                for (int id : nodeIds) {
+                    if (!before.containsNode(id)) {
+                        successorIndex.addWord(id);
                     }
                 }
-            }
-
-            if (bridgeWords.isEmpty()) {
-                System.out.println("No bridge words from " + word1 + " to " + word2 + "!");
-                return " ";
-            }
-
-            StringBuilder result = new StringBuilder();
-            for (String word : bridgeWords) {
-                if (result.length() > 0) {
-                    result.append(", ");
+                for (int e = 0; e < srcs.length; e++) {
+                    successorIndex.increment(srcs[e], dsts[e], weights[e]);
                 }
-                result.append(word);
             }
-            System.out.println("The bridge words from " + word1 + " to " + word2 + " is(are): " + result);
-            return result.toString();
+            frozen = before.mergeIncrements(dictionary, nodeIds, srcs, dsts, weights);
+            snapshotChanged();
         }
 
-        //基于桥接词查询生成新文本
-        public String generateNewText(String inputext) {
-            List<String> StringList = INPUT_text(inputext);
-            int size = StringList.size();
-            StringBuilder newWordsBuilder = new StringBuilder();
-            for (int i = 0; i < size - 1; i++) {
-                String word = queryBridgeWords(StringList.get(i), StringList.get(i + 1));
-                newWordsBuilder.append(StringList.get(i));
-                newWordsBuilder.append(" ");
-                if (!Objects.equals(word, " ")) {
-                    newWordsBuilder.append(word);
-                    newWordsBuilder.append(" ");
-                }
+        //按权重排序的后继/前驱索引，首次调用时建立，之后随addEdge和增量修改同步更新
+        public SuccessorIndex successorIndex() {
+            if (successorIndex == null) {
+                successorIndex = SuccessorIndex.build(freeze(), dictionary);
+                addGraphListener(successorIndex);
             }
-            newWordsBuilder.append(StringList.get(size - 1));
-            return newWordsBuilder.toString();
+            return successorIndex;
         }
 
-        //获取节点的邻居节点和权重
-        private Map<String, Integer> getNeighbors(String node) {
-            return edgeSet.getOrDefault(node, Collections.emptyMap());
+        public void addGraphListener(GraphListener listener) {
+            listeners.add(listener);
         }
 
-        //最短路径
-        public String calcShortestPath(String start, String end) {
-            if (!nodeSet.contains(start) || !nodeSet.contains(end)) {
-                return "No " + start + " or " + end + " in the graph!";
-            }
+        public void removeGraphListener(GraphListener listener) {
+            listeners.remove(listener);
+        }
 
-            // 初始化距离数组，默认无穷大
-            Map<String, Integer> distances = new HashMap<>();
-            for (String node : nodeSet) {
-                distances.put(node, Integer.MAX_VALUE);
-            }
-            distances.put(start, 0);
+        //CSR每次变化（写缓冲合并或增量修改）后以新快照回调，在修改线程上同步调用；
+        //addNode/addEdge先进入写缓冲，等自动合并或显式调用freeze()后才会通知
+        public void addSnapshotListener(Consumer<CsrGraph> listener) {
+            snapshotListeners.add(listener);
+        }
 
-            // 优先队列，用于存储待处理的节点和它们的距离
-            PriorityQueue<Map.Entry<String, Integer>> pq = new PriorityQueue<>(
-                    (e1, e2) -> Integer.compare(e1.getValue(), e2.getValue())
-            );
-            pq.add(new AbstractMap.SimpleEntry<>(start, 0));
+        public void removeSnapshotListener(Consumer<CsrGraph> listener) {
+            snapshotListeners.remove(listener);
+        }
 
-            // 存储最短路径
-            Map<String, String> prev = new HashMap<>();
+        private void snapshotChanged() {
+            for (Consumer<CsrGraph> listener : snapshotListeners) {
+                listener.accept(frozen);
+            }
+        }
 
-            while (!pq.isEmpty()) {
-                Map.Entry<String, Integer> current = pq.poll();
-                String currentNode = current.getKey();
-                int currentDistance = current.getValue();
+        //增量追加一段文本（不与之前的文本首尾相连）：就地更新边权重，
+        //并修补已有的CSR、桥接词索引、游走别名表和最短路径缓存，而不是整体重建
+        public GraphDelta appendText(String text) {
+            return applyText(text, 1);
+        }
 
-                // 如果当前节点已经被处理过更短的距离，则跳过
-                if (currentDistance > distances.get(currentNode)) {
-                    continue;
-                }
+        //撤销之前追加过的一段文本，权重减到0的边被删除，不再有任何边的节点被删除；
+        //文本中有单词对的次数超过图中现有权重时抛出异常，图保持不变
+        public GraphDelta removeText(String text) {
+            return applyText(text, -1);
+        }
 
-                // 检查是否到达目标节点
-                if (currentNode.equals(end)) {
-                    StringBuilder path = new StringBuilder();
-                    for (String node = end; !node.equals(start); node = prev.get(node)) {
-                        if (path.length() > 0) {
-                            path.append("→");
+        private GraphDelta applyText(String text, int sign) {
+            CsrGraph before = freeze();
+            List<String> words = textTokens(text);
+            Map<String, Map<String, Integer>> counts = new HashMap<>();
+            for (int i = 0; i < words.size() - 1; i++) {
+                counts.computeIfAbsent(words.get(i), k -> new HashMap<>()).merge(words.get(i + 1), 1, Integer::sum);
+            }
+            if (sign < 0) {
+                for (Map.Entry<String, Map<String, Integer>> entry : counts.entrySet()) {
+                    for (Map.Entry<String, Integer> weightEntry : entry.getValue().entrySet()) {
+                        if (weight(before, entry.getKey(), weightEntry.getKey()) < weightEntry.getValue()) {
+                            throw new IllegalArgumentException("text is not part of the graph: "
+                                    + entry.getKey() + " -> " + weightEntry.getKey());
                         }
-                        path.append(node);
                     }
-                    path.append("→").append(start);
-                    return path.toString() + " (length: " + distances.get(end) + ")";
                 }
+            }
 
-                // 遍历当前节点的所有邻居
-                for (Map.Entry<String, Integer> neighbor : getNeighbors(currentNode).entrySet()) {
-                    String neighborNode = neighbor.getKey();
-                    int newDistance = currentDistance + neighbor.getValue();
-
-                    // 如果通过当前节点到达邻居节点的距离更短，则更新距离和最短路径
-                    if (newDistance < distances.get(neighborNode)) {
-                        distances.put(neighborNode, newDistance);
-                        prev.put(neighborNode, currentNode);
-                        pq.add(new AbstractMap.SimpleEntry<>(neighborNode, newDistance));
+            Set<String> addedNodes = new LinkedHashSet<>();
+            List<GraphDelta.EdgeChange> changes = new ArrayList<>();
+            // 边被删除的端点，以及它们出入边条数的变化
+            Map<String, Integer> degreeChange = new HashMap<>();
+            for (Map.Entry<String, Map<String, Integer>> entry : counts.entrySet()) {
+                String src = entry.getKey();
+                int srcId = dictionary.add(src);
+                if (sign > 0 && !before.containsNode(src)) {
+                    addedNodes.add(src);
+                }
+                for (Map.Entry<String, Integer> weightEntry : entry.getValue().entrySet()) {
+                    String dest = weightEntry.getKey();
+                    int destId = dictionary.add(dest);
+                    int oldWeight = weight(before, src, dest);
+                    int newWeight = oldWeight + sign * weightEntry.getValue();
+                    if (sign > 0 && !before.containsNode(dest)) {
+                        addedNodes.add(dest);
+                    }
+                    if (newWeight == 0) {
+                        degreeChange.merge(src, -1, Integer::sum);
+                        degreeChange.merge(dest, -1, Integer::sum);
                     }
+                    changes.add(new GraphDelta.EdgeChange(src, dest, srcId, destId, oldWeight, newWeight));
                 }
             }
+            List<String> removedNodes = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : degreeChange.entrySet()) {
+                int id = before.id(entry.getKey());
+                if (before.containsNode(id) && before.outDegree(id) + before.inDegree(id) + entry.getValue() == 0) {
+                    removedNodes.add(entry.getKey());
+                }
+            }
+            changes.sort(Comparator.comparingInt(GraphDelta.EdgeChange::getSrcId)
+                    .thenComparingInt(GraphDelta.EdgeChange::getDestId));
+            List<String> added = new ArrayList<>(addedNodes);
+            GraphDelta delta = new GraphDelta(added, ids(added), removedNodes, ids(removedNodes), changes);
+            if (delta.isEmpty()) {
+                return delta;
+            }
 
-            return "No path from " + start + " to " + end + "!";
+            frozen = before.applyDelta(delta, dictionary.snapshot());
+            pathCache.patch(before, frozen, delta);
+            for (GraphListener listener : listeners) {
+                listener.graphChanged(delta);
+            }
+            snapshotChanged();
+            return delta;
         }
 
-        //随机游走
-        public String randomWalk() {
-            List<String> walk = new ArrayList<>();
-            Random rand = new Random();
-            Set<String> visitedEdges = new HashSet<>();
+        private int weight(CsrGraph csr, String src, String dest) {
+            int srcId = csr.id(src);
+            int destId = csr.id(dest);
+            return srcId >= 0 && destId >= 0 ? csr.weight(srcId, destId) : 0;
+        }
 
-            // 随机选择起始节点
-            if (nodeSet.isEmpty()) {
-                throw new IllegalArgumentException("The graph is empty, no nodes to start from");
+        private int[] ids(List<String> words) {
+            int[] ids = new int[words.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = dictionary.add(words.get(i));
             }
-            String[] nodes = nodeSet.toArray(new String[0]);
-            String currentNode = nodes[rand.nextInt(nodes.length)];
+            return ids;
+        }
 
-            walk.add(currentNode);
-            Scanner scanner = new Scanner(System.in);
-            boolean flag = true;
-            while(flag) {
-                Map<String, Integer> neighbors = edgeSet.get(currentNode);
 
-                if (neighbors == null || neighbors.isEmpty()) {
-                    break; // 当前节点没有出边，停止随机游走
+
+
+        //有向图表示
+        public void showDirectedGraph(Graph graph) {
+            // 按原来HashSet/HashMap的顺序打印，临时集合只在展示时创建
+            CsrGraph csr = graph.freeze();
+            Set<String> nodeSet = new HashSet<String>();
+            Map<String, Map<String, Integer>> edgeSet = new HashMap<String, Map<String, Integer>>();
+            for (int node : csr.nodeIds()) {
+                nodeSet.add(csr.word(node));
+            }
+            int[] offsets = csr.outOffsets();
+            int[] targets = csr.outTargets();
+            int[] weights = csr.outWeights();
+            for (int src = 0; src < csr.idCount(); src++) {
+                for (int e = offsets[src]; e < offsets[src + 1]; e++) {
+                    edgeSet.computeIfAbsent(csr.word(src), k -> new HashMap<>()).put(csr.word(targets[e]), weights[e]);
                 }
+            }
+            // 打印节点集合
+            System.out.println("Node Set:");
+            System.out.println(nodeSet);
 
-                // 从邻居中随机选择一个节点
-                int totalWeight = 0;
-                for (int weight : neighbors.values()) {
-                    totalWeight += weight;
+            // 打印带权重的边
+            for (Map.Entry<String, Map<String, Integer>> entry : edgeSet.entrySet()) {
+                System.out.println("Node: " + entry.getKey());
+                for (Map.Entry<String, Integer> weightEntry : entry.getValue().entrySet()) {
+                    System.out.println(" -> " + weightEntry.getKey() + " (weight: " + weightEntry.getValue() + ")");
                 }
+            }
+        }
 
-                int randomValue = rand.nextInt(totalWeight);
-                int cumulativeWeight = 0;
-                String nextNode = null;
+        ///查询桥接词（bridge words）
+        public String queryBridgeWords(String word1, String word2) {
+            BridgeResult result = freeze().bridgeIndex().query(word1, word2);
+            System.out.println(result);
+            return result.format();
+        }
 
-                for (Map.Entry<String, Integer> entry : neighbors.entrySet()) {
-                    cumulativeWeight += entry.getValue();
-                    if (randomValue < cumulativeWeight) {
-                        nextNode = entry.getKey();
-                        break;
-                    }
-                }
+        //批量查询桥接词，返回结构化结果，不打印
+        public List<BridgeResult> queryBridgeWords(Collection<? extends Map.Entry<String, String>> pairs) {
+            return freeze().bridgeIndex().queryBatch(pairs);
+        }
+
+        //基于桥接词查询生成新文本，输入按INPUT_text规则分词，不做规范化
+        public String generateNewText(String inputext) {
+            return freeze().generateNewText(inputext);
+        }
+
+        //流式生成新文本，适合大文档
+        public void generateNewText(Reader in, Writer out) throws IOException {
+            freeze().textRewriter().rewrite(in, out);
+        }
 
-                // 检查是否遇到重复边
-                String edge = currentNode + "->" + nextNode;
-                if (visitedEdges.contains(edge)) {
-                    break; // 遇到重复边，停止随机游走
+        //最短路径，同一源点的多次查询复用缓存的最短路径树
+        public String calcShortestPath(String start, String end) {
+            // 找不到节点或不可达的查询同样计时
+            long startNanos = GraphMetrics.start();
+            try {
+                CsrGraph csr = freeze();
+                int src = csr.id(start);
+                int dst = csr.id(end);
+                if (!csr.containsNode(src) || !csr.containsNode(dst)) {
+                    return "No " + start + " or " + end + " in the graph!";
+                }
+                if (!csr.reachability().mayReach(src, dst)) {
+                    return "No path from " + start + " to " + end + "!";
                 }
+                return landmarkCount > 0 ? landmarkEngine(csr).calcShortestPath(start, end)
+                        : pathCache.get(csr, src).pathTo(dst);
+            } finally {
+                GraphMetrics.record(GraphMetrics.SHORTEST_PATH, startNanos);
+            }
+        }
 
-                // 记录边和节点
-                visitedEdges.add(edge);
-                currentNode = nextNode;
-                walk.add(currentNode);
+        //点对点最短路径改用ALT：最多count个地标，距离表不超过memoryBudgetBytes；count为0时关闭。
+        //图修改后地标表在下一次查询时重新计算
+        public void useLandmarks(int count, long memoryBudgetBytes) {
+            landmarkCount = count;
+            landmarkBudget = memoryBudgetBytes;
+            landmarkEngine = null;
+        }
 
+        private ShortestPathEngine landmarkEngine(CsrGraph csr) {
+            if (landmarkEngine == null || landmarkEngine.getGraph() != csr) {
+                landmarkEngine = new ShortestPathEngine(csr, Landmarks.select(csr, landmarkCount, landmarkBudget));
+            }
+            return landmarkEngine;
+        }
+
+        //PageRank分数最高的k个单词；图修改后以上次的分数热启动
+        public List<Map.Entry<String, Double>> topRanked(int k) {
+            CsrGraph csr = freeze();
+            if (ranks == null || ranks.getGraph() != csr) {
+                ranks = new PageRank().run(csr, ranks);
+            }
+            return ranks.top(k);
+        }
 
+        //从start到图中其他所有单词的最短路径，键为终点
+        public Map<String, String> calcShortestPaths(String start) {
+            CsrGraph csr = freeze();
+            int src = csr.id(start);
+            if (!csr.containsNode(src)) {
+                return Collections.singletonMap(start, "No " + start + " in the graph!");
             }
+            return pathCache.get(csr, src).pathsToAll();
+        }
 
+        //随机游走
+        public String randomWalk() {
+            List<String> walk = freeze().walkWords(new Random());
 
             // 将walk列表转换为字符串
             System.out.println(walk);
             String walking_path = String.join(" -> ", walk);
             System.out.println(walking_path);
-            return String.join(" -> ", walk);
+            return walking_path;
 
         }
-        //有向图可视化
+        //有向图可视化：写入index.html并尝试用系统浏览器打开
         public static void writeSVGToHTML(String svgContent) {
             String htmlContent = "<!DOCTYPE html>\n<html>\n<head>\n<title>SVG Output</title>\n</head>\n<body>\n"
                     + svgContent + "\n</body>\n</html>";
 
             try {
                 // 将SVG内容写入到index.html
-                FileWriter writer = new FileWriter("index.html");
-                writer.write(htmlContent);
-                writer.close();
-
-                // 在浏览器中打开index.html
-                Runtime.getRuntime().exec("cmd /c start index.html");
+                Path html = Paths.get("index.html");
+                Files.write(html, htmlContent.getBytes(StandardCharsets.UTF_8));
+                openInBrowser(html);
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
+
+        //流式导出到文件，不在内存中拼接整个SVG字符串，适合大图
+        public void exportGraph(GraphExporter.Format format, Path path) throws IOException {
+            new GraphExporter(freeze()).export(format, path);
+        }
+
+        public GraphExporter exporter() {
+            return new GraphExporter(freeze());
+        }
+
+        // 在浏览器中打开文件；没有图形环境（如Linux服务器）时只提示文件位置
+        private static void openInBrowser(Path file) throws IOException {
+            if (!GraphicsEnvironment.isHeadless() && Desktop.isDesktopSupported()
+                    && Desktop.getDesktop().isSupported(Desktop.Action.BROWSE)) {
+                Desktop.getDesktop().browse(file.toAbsolutePath().toUri());
+            } else {
+                System.out.println("SVG written to " + file.toAbsolutePath());
+            }
+        }
         /*public String generateSVG() {
             StringBuilder svg = new StringBuilder();
             svg.append("<svg xmlns='http://www.w3.org/2000/svg' width='4500' height='5120'>");
@@ -354,77 +528,17 @@ public class Main {
         }*/
 
         public String generateSVG() {
-            StringBuilder svg = new StringBuilder();
-            svg.append("<svg xmlns='http://www.w3.org/2000/svg' width='5120' height='3200'>");
-
-            // Map each node to coordinates for simplicity
-            int radius = 1200;
-            int centerX = 2560;
-            int centerY = 1600;
-            int nodeRadius = 40;
-            double angleStep = 2 * Math.PI / nodeSet.size();
-
-            // Create node positions
-            Map<String, double[]> positions = new HashMap<>();
-            int i = 0;
-            for (String node : nodeSet) {
-                double angle = i * angleStep;
-                double x = centerX + radius * Math.cos(angle);
-                double y = centerY + radius * Math.sin(angle);
-                positions.put(node, new double[]{x, y});
-                i++;
-            }
-
-            // Draw edges with arrows
-            for (String src : edgeSet.keySet()) {
-                for (String dest : edgeSet.get(src).keySet()) {
-                    double[] srcPos = positions.get(src);
-                    double[] destPos = positions.get(dest);
-                    double dx = destPos[0] - srcPos[0];
-                    double dy = destPos[1] - srcPos[1];
-                    double angle = Math.atan2(dy, dx);
-                    double midX = (srcPos[0] + destPos[0]) / 2;
-                    double midY = (srcPos[1] + destPos[1]) / 2;
-
-                    // Calculate arrow points
-                    double arrowLength = 10;
-                    double arrowX1 = midX - arrowLength * Math.cos(angle - Math.PI / 6);
-                    double arrowY1 = midY - arrowLength * Math.sin(angle - Math.PI / 6);
-                    double arrowX2 = midX - arrowLength * Math.cos(angle + Math.PI / 6);
-                    double arrowY2 = midY - arrowLength * Math.sin(angle + Math.PI / 6);
-
-                    // Draw line
-                    svg.append("<line x1='").append(srcPos[0]).append("' y1='").append(srcPos[1])
-                            .append("' x2='").append(destPos[0]).append("' y2='").append(destPos[1])
-                            .append("' stroke='black'/>");
-
-                    // Draw arrowhead at the midpoint
-                    svg.append("<polygon points='").append(midX).append(",").append(midY)
-                            .append(" ").append(arrowX1).append(",").append(arrowY1)
-                            .append(" ").append(arrowX2).append(",").append(arrowY2)
-                            .append("' fill='black'/>");
-
-                    // Draw weight near the midpoint, above the arrow
-                    int weight = edgeSet.get(src).get(dest);
-                    svg.append("<text x='").append(midX + 5).append("' y='").append(midY - 5)
-                            .append("' fill='red' font-size='24'>").append(weight).append("</text>");
-                }
-            }
-
-            // Draw nodes
-            for (String node : nodeSet) {
-                double[] pos = positions.get(node);
-                svg.append("<circle cx='").append(pos[0]).append("' cy='").append(pos[1])
-                        .append("' r='").append(nodeRadius).append("' fill='lightblue' stroke='black'/>");
-                svg.append("<text x='").append(pos[0]).append("' y='").append(pos[1])
-                        .append("' text-anchor='middle' dy='.3em' font-size='20'>").append(node)
-                        .append("</text>");
-            }
+            String svg = freeze().generateSVG();
+            writeSVGToHTML(svg);
+            return svg;
+        }
 
-            // Close SVG
-            svg.append("</svg>");
-            writeSVGToHTML(svg.toString());
-            return svg.toString();
+        //使用力导向布局生成SVG，适合单词较多的图
+        public String generateSVG(ForceLayout layout) {
+            CsrGraph csr = freeze();
+            String svg = csr.generateSVG(layout.run(csr));
+            writeSVGToHTML(svg);
+            return svg;
         }
     }
 
@@ -443,6 +557,7 @@ public class Main {
         }
     }
     public void Text2Graph(Graph graph, Text text){
+        long start = GraphMetrics.start();
         List<String> words = text.getWords();
         // 遍历所有单词，但最后一个单词没有后继，所以不用添加到图中
         for (int i = 0; i < words.size() - 1; i++) {
@@ -450,16 +565,31 @@ public class Main {
             String dest = words.get(i + 1);
 
             // 添加单词到节点集合
-            if (!graph.nodeSet.contains(src)) {
+            if (!graph.containsNode(src)) {
                 graph.addNode(src);
             }
-            if (!graph.nodeSet.contains(dest)) {
+            if (!graph.containsNode(dest)) {
                 graph.addNode(dest);
             }
 
             // 添加有向边
             graph.addEdge(src, dest);
         }
+        GraphMetrics.recordIngest(words.size(), Math.max(words.size() - 1, 0), start);
+    }
+    //并行构建：按区间切分单词序列，各线程统计部分图后合并，结果与Text2Graph一致
+    public void Text2GraphParallel(Graph graph, Text text){
+        new ParallelGraphBuilder().build(graph, text.getWords());
+    }
+    //增量更新使用的分词：规范化后按空白切分，忽略空单词
+    static List<String> textTokens(String text){
+        List<String> words = new ArrayList<>();
+        for (String word : address_file(text).split(" +")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
     }
     public static String address_file(String file){
         String fileto = file;
@@ -513,28 +643,110 @@ public class Main {
 
 
 
+    //命令行参数中name后面的值，没有时返回null
+    private static String argValue(String[] args, String name) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
     public static void main(String[] args) {
         // 示例文本
         //String text = "To @ explore strange new worlds,To seek out new life and new civilizations?";
 
         String filePath = "text1.txt";
+        // --stream: 流式读取大语料，不在内存中保留整份文本
+        boolean streaming = Arrays.asList(args).contains("--stream");
+        // --load <快照>: 从二进制快照启动；--save <快照>: 建图后保存快照
+        String loadPath = argValue(args, "--load");
+        String savePath = argValue(args, "--save");
+        // 统计信息注册到JMX；--metrics <秒>: 另外定期输出到标准错误
+        GraphMetrics.registerMBeans();
+        String metricsPeriod = argValue(args, "--metrics");
+        if (metricsPeriod != null) {
+            GraphMetrics.startReporter(Long.parseLong(metricsPeriod), System.err);
+        }
         try {
-            // 读取文件内容
-            List<String> lines = Files.readAllLines(Paths.get(filePath));
-
-            // 将所有行合并为一个字符串，并用空格分隔单词
-            String text = String.join(" ", lines);
-            text = address_file(text);
-
             // 创建lab1(改为main对象,可移植更改即可)对象和Graph对象
             Main labInstance = new Main();
             Main.Graph graph = labInstance.new Graph();
 
-            // 创建Text对象
-            Text textObj = labInstance.new Text(text);
+            String text;
+            if (loadPath != null) {
+                graph = labInstance.new Graph(GraphSnapshot.read(Paths.get(loadPath)));
+                text = "(从快照启动时不保留原文)";
+            } else if (argValue(args, "--dir") != null) {
+                // --dir <目录> [--glob <模式>] [--join-files]: 用多阶段流水线读取目录下的所有文件
+                String glob = argValue(args, "--glob");
+                List<Path> files = IngestPipeline.listFiles(Paths.get(argValue(args, "--dir")),
+                        glob == null ? "**" : glob);
+                ConcurrentGraph concurrent = new IngestPipeline()
+                        .joinFiles(Arrays.asList(args).contains("--join-files"))
+                        .progress(1000, System.err)
+                        .run(files);
+                graph = labInstance.new Graph(concurrent.freeze());
+                text = "(目录模式下不保留原文)";
+            } else if (streaming && argValue(args, "--offheap") != null) {
+                // --offheap <目录>: 建图时边表放在堆外，超过1GB后换到该目录下的映射文件；
+                // 查询使用freeze得到的CSR，离开try时释放堆外表
+                try (OffHeapGraph offHeap = new OffHeapGraph(1 << 20, Paths.get(argValue(args, "--offheap")), 1L << 30)) {
+                    new StreamingIngest(offHeap, StreamingIngest.DEFAULT_CHUNK_SIZE).readFile(Paths.get(filePath));
+                    graph = labInstance.new Graph(offHeap.freeze());
+                }
+                text = "(流式模式下不保留原文)";
+            } else if (streaming) {
+                StreamingIngest.ingest(graph, Paths.get(filePath));
+                text = "(流式模式下不保留原文)";
+            } else {
+                // 读取文件内容
+                List<String> lines = Files.readAllLines(Paths.get(filePath));
+
+                // 将所有行合并为一个字符串，并用空格分隔单词
+                text = String.join(" ", lines);
+                text = address_file(text);
 
-            // 调用Text2Graph方法
-            labInstance.Text2Graph(graph, textObj);
+                // 创建Text对象
+                Text textObj = labInstance.new Text(text);
+
+                // 调用Text2Graph方法，--parallel时使用并行构建
+                if (Arrays.asList(args).contains("--parallel")) {
+                    labInstance.Text2GraphParallel(graph, textObj);
+                } else {
+                    labInstance.Text2Graph(graph, textObj);
+                }
+            }
+
+            if (savePath != null) {
+                graph.saveSnapshot(Paths.get(savePath));
+            }
+
+            // --landmarks <个数>: 最短路径查询使用ALT预处理，距离表最多占用256MB
+            String landmarks = argValue(args, "--landmarks");
+            if (landmarks != null) {
+                graph.useLandmarks(Integer.parseInt(landmarks), 256L << 20);
+            }
+
+            // --bridge-matrix <文件>: 写出所有存在桥接词的单词对后退出
+            String matrixPath = argValue(args, "--bridge-matrix");
+            if (matrixPath != null) {
+                long pairs = new BridgeMatrix(graph.freeze()).write(Paths.get(matrixPath));
+                System.out.println(pairs + " word pairs written to " + matrixPath);
+                return;
+            }
+
+            // --serve <端口>: 以HTTP服务模式运行，不进入交互菜单
+            String servePort = argValue(args, "--serve");
+            if (servePort != null) {
+                GraphServer server = new GraphServer(graph.freeze(),
+                        new java.net.InetSocketAddress(Integer.parseInt(servePort)));
+                server.follow(graph);
+                server.start();
+                System.out.println("Serving on " + server.getAddress());
+                return;
+            }
 
             Scanner scanner = new Scanner(System.in);
             boolean flag = true;
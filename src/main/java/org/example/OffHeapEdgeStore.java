@@ -0,0 +1,278 @@
+package org.example;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//堆外的边权表：以(srcId, dstId)为键的开放寻址哈希表，每个槽12字节（src, dst, weight），
+//存放在直接内存中；表超过maxDirectBytes或JVM直接内存上限（-XX:MaxDirectMemorySize，默认等于-Xmx）的3/4后
+//改为映射到spillDir下的临时文件，由操作系统换页。
+//权重为0的槽即空槽，新分配的内存和稀疏文件天然全零。表按段存放，总容量不受单个ByteBuffer 2GB的限制。
+//扩容时逐段迁移，迁移完的旧段立即释放，新段在第一次写入时才分配，峰值约为新表大小加一段。
+//不是线程安全的
+public final class OffHeapEdgeStore implements AutoCloseable {
+    private static final int SLOT_BYTES = 12;
+    private static final int SEGMENT_BITS = 27;
+    private static final double LOAD_FACTOR = 0.7;
+    //sun.misc.Unsafe.invokeCleaner：立即归还直接内存或解除映射；不可用时为null，留给GC回收
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    @FunctionalInterface
+    public interface EdgeVisitor {
+        void accept(int src, int dst, int weight);
+    }
+
+    private final Path spillDir;
+    private final long maxDirectBytes;
+    private ByteBuffer[] segments;
+    private int segmentBits;
+    private long mask;
+    private long size;
+    private boolean spilled;
+    //映射文件的通道，只在分配段的过程中打开
+    private FileChannel channel;
+
+    public OffHeapEdgeStore(long expectedEdges) {
+        this(expectedEdges, null, Long.MAX_VALUE);
+    }
+
+    public OffHeapEdgeStore(long expectedEdges, Path spillDir, long maxDirectBytes) {
+        this.spillDir = spillDir;
+        this.maxDirectBytes = spillDir == null ? Long.MAX_VALUE : Math.min(maxDirectBytes, directMemoryLimit() / 4 * 3);
+        long capacity = Long.highestOneBit(Math.max((long) (expectedEdges / LOAD_FACTOR), 16) - 1) << 1;
+        allocate(capacity);
+        finishAllocation();
+    }
+
+    //JVM允许分配的直接内存总量
+    static long directMemoryLimit() {
+        try {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            long limit = Long.parseLong(bean.getVMOption("MaxDirectMemorySize").getValue());
+            if (limit > 0) {
+                return limit;
+            }
+        } catch (RuntimeException e) {
+            // 不是HotSpot虚拟机，按默认值处理
+        }
+        return Runtime.getRuntime().maxMemory();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public long capacity() {
+        return mask + 1;
+    }
+
+    //表是否已经落到映射文件上
+    public boolean isSpilled() {
+        return spilled;
+    }
+
+    //按新容量建立空的段数组，段本身由newSegment/finishAllocation分配
+    private void allocate(long capacity) {
+        segmentBits = Math.min(SEGMENT_BITS, Long.numberOfTrailingZeros(capacity));
+        segments = new ByteBuffer[(int) (capacity >>> segmentBits)];
+        mask = capacity - 1;
+        spilled = capacity * SLOT_BYTES > maxDirectBytes;
+        if (spilled) {
+            try {
+                // 映射在通道关闭、文件删除后仍然有效
+                channel = FileChannel.open(Files.createTempFile(spillDir, "edges", ".bin"),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SPARSE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("failed to allocate edge table of " + capacity + " slots", e);
+            }
+        }
+    }
+
+    private ByteBuffer newSegment(int index) {
+        long bytes = (long) SLOT_BYTES << segmentBits;
+        try {
+            ByteBuffer segment = spilled
+                    ? channel.map(FileChannel.MapMode.READ_WRITE, index * bytes, bytes)
+                    : ByteBuffer.allocateDirect((int) bytes);
+            segments[index] = segment.order(ByteOrder.nativeOrder());
+            return segments[index];
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to map segment " + index + " of the edge table", e);
+        }
+    }
+
+    //分配还没有分配的段，关闭映射文件的通道
+    private void finishAllocation() {
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i] == null) {
+                newSegment(i);
+            }
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException e) {
+                // 释放失败时留给GC
+            }
+        }
+    }
+
+    private static long hash(int src, int dst) {
+        long h = ((long) src << 32 | (dst & 0xffffffffL)) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private ByteBuffer segment(long slot) {
+        return segments[(int) (slot >>> segmentBits)];
+    }
+
+    private int offset(long slot) {
+        return (int) (slot & ((1 << segmentBits) - 1)) * SLOT_BYTES;
+    }
+
+    //边权增加delta（必须为正），返回新的权重
+    public int increment(int src, int dst, int delta) {
+        if (delta <= 0) {
+            throw new IllegalArgumentException("delta must be positive: " + delta);
+        }
+        for (long slot = hash(src, dst) & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            int weight = segment.getInt(offset + 8);
+            if (weight == 0) {
+                segment.putInt(offset, src);
+                segment.putInt(offset + 4, dst);
+                segment.putInt(offset + 8, delta);
+                if (++size > (mask + 1) * LOAD_FACTOR) {
+                    resize();
+                }
+                return delta;
+            }
+            if (segment.getInt(offset) == src && segment.getInt(offset + 4) == dst) {
+                int newWeight = Math.addExact(weight, delta);
+                segment.putInt(offset + 8, newWeight);
+                return newWeight;
+            }
+        }
+    }
+
+    //边权，边不存在时返回0
+    public int weight(int src, int dst) {
+        for (long slot = hash(src, dst) & mask; ; slot = (slot + 1) & mask) {
+            ByteBuffer segment = segment(slot);
+            int offset = offset(slot);
+            int weight = segment.getInt(offset + 8);
+            if (weight == 0) {
+                return 0;
+            }
+            if (segment.getInt(offset) == src && segment.getInt(offset + 4) == dst) {
+                return weight;
+            }
+        }
+    }
+
+    //按槽顺序访问所有边
+    public void forEach(EdgeVisitor visitor) {
+        int segmentSlots = 1 << segmentBits;
+        for (ByteBuffer segment : segments) {
+            for (int i = 0, offset = 0; i < segmentSlots; i++, offset += SLOT_BYTES) {
+                int weight = segment.getInt(offset + 8);
+                if (weight != 0) {
+                    visitor.accept(segment.getInt(offset), segment.getInt(offset + 4), weight);
+                }
+            }
+        }
+    }
+
+    //逐段迁移到两倍容量的新表，每迁移完一个旧段就释放它
+    private void resize() {
+        ByteBuffer[] old = segments;
+        int oldSlots = 1 << segmentBits;
+        allocate((mask + 1) * 2);
+        for (int s = 0; s < old.length; s++) {
+            ByteBuffer segment = old[s];
+            for (int i = 0, offset = 0; i < oldSlots; i++, offset += SLOT_BYTES) {
+                int weight = segment.getInt(offset + 8);
+                if (weight != 0) {
+                    insertFresh(segment.getInt(offset), segment.getInt(offset + 4), weight);
+                }
+            }
+            old[s] = null;
+            free(segment);
+        }
+        finishAllocation();
+    }
+
+    //迁移时插入不存在的键；还没有分配的段视为全空
+    private void insertFresh(int src, int dst, int weight) {
+        long slot = hash(src, dst) & mask;
+        while (true) {
+            ByteBuffer segment = segments[(int) (slot >>> segmentBits)];
+            if (segment == null) {
+                segment = newSegment((int) (slot >>> segmentBits));
+            }
+            int offset = offset(slot);
+            if (segment.getInt(offset + 8) == 0) {
+                segment.putInt(offset, src);
+                segment.putInt(offset + 4, dst);
+                segment.putInt(offset + 8, weight);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    //立即释放直接内存和文件映射，之后不能再使用
+    @Override
+    public void close() {
+        if (segments != null) {
+            for (ByteBuffer segment : segments) {
+                if (segment != null) {
+                    free(segment);
+                }
+            }
+        }
+        segments = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+//建图阶段的堆外缓冲：堆上只有词表和节点集合，边权在OffHeapEdgeStore中累加，建图期间不产生每条边的堆对象，
+//GC停顿不随边数增长。只有建图在堆外：查询不在堆外表上执行，freeze把边表转换为堆上的CsrGraph
+//（每条边约24字节，正反向各一份，边数受int下标限制）。Main.Graph(CsrGraph)直接使用快照的CSR数组，
+//字典在freeze时只取O(1)的只读视图，由Graph复制一次得到可修改的字典；之后可调用close立即释放堆外表
+public class OffHeapGraph implements AutoCloseable {
+    private final WordDictionary dictionary = new WordDictionary();
+    private final BitSet nodes = new BitSet();
+    private final OffHeapEdgeStore edges;
+    private CsrGraph frozen;
+
+    public OffHeapGraph() {
+        this(new OffHeapEdgeStore(1 << 16));
+    }
+
+    //直接内存超过maxDirectBytes后把边表换到spillDir下的映射文件
+    public OffHeapGraph(long expectedEdges, Path spillDir, long maxDirectBytes) {
+        this(new OffHeapEdgeStore(expectedEdges, spillDir, maxDirectBytes));
+    }
+
+    public OffHeapGraph(OffHeapEdgeStore edges) {
+        this.edges = edges;
+    }
+
+    public WordDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public OffHeapEdgeStore getEdgeStore() {
+        return edges;
+    }
+
+    public int addNode(String node) {
+        int id = dictionary.add(node);
+        if (!nodes.get(id)) {
+            nodes.set(id);
+            frozen = null;
+        }
+        return id;
+    }
+
+    public void addEdge(String src, String dest) {
+        addEdge(addNode(src), addNode(dest), 1);
+    }
+
+    //按节点ID加边，两端必须已经通过addNode加入
+    public void addEdge(int src, int dest, int weight) {
+        edges.increment(src, dest, weight);
+        frozen = null;
+    }
+
+    //按相邻单词对加边，与Text2Graph一致
+    public void addWords(List<String> words) {
+        if (words.size() < 2) {
+            return;
+        }
+        int prev = addNode(words.get(0));
+        for (int i = 1; i < words.size(); i++) {
+            int current = addNode(words.get(i));
+            addEdge(prev, current, 1);
+            prev = current;
+        }
+    }
+
+    public int nodeCount() {
+        return nodes.cardinality();
+    }
+
+    public long edgeCount() {
+        return edges.size();
+    }
+
+    public int weight(String src, String dest) {
+        int srcId = dictionary.id(src);
+        int destId = dictionary.id(dest);
+        return srcId < 0 || destId < 0 ? 0 : edges.weight(srcId, destId);
+    }
+
+    //生成只读的CSR快照，没有新的修改时重复调用返回同一个快照。
+    //直接从堆外表分两遍填入CSR数组，不在堆上建立中间的边列表；字典用只读视图，之后加入的单词对快照不可见
+    public CsrGraph freeze() {
+        if (frozen == null) {
+            frozen = CsrGraph.fromEdges(dictionary.snapshot(), (BitSet) nodes.clone(), dictionary.size(),
+                    Math.toIntExact(edges.size()), edges::forEach);
+        }
+        return frozen;
+    }
+
+    @Override
+    public void close() {
+        edges.close();
+    }
+}
@@ -0,0 +1,178 @@
+package org.example;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+//带权PageRank：沿入边CSR拉取，转移概率为边权除以源点出边权重和；
+//没有出边的节点把分数均匀分给所有节点。每轮各节点独立计算，可以并行且结果与线程调度无关。
+//可以用上一次的结果热启动，分数按稳定的单词ID对应
+public class PageRank {
+    private double damping = 0.85;
+    private double tolerance = 1e-9;
+    private int maxIterations = 100;
+    private boolean parallel = true;
+
+    public PageRank damping(double damping) {
+        if (damping < 0 || damping >= 1) {
+            throw new IllegalArgumentException("damping must be in [0, 1): " + damping);
+        }
+        this.damping = damping;
+        return this;
+    }
+
+    //两轮之间分数变化的L1范数低于tolerance时停止
+    public PageRank tolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public PageRank maxIterations(int maxIterations) {
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("maxIterations must not be negative: " + maxIterations);
+        }
+        this.maxIterations = maxIterations;
+        return this;
+    }
+
+    public PageRank parallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    //计算结果：按节点ID索引的分数，所有节点的分数之和为1
+    public static final class Scores {
+        private final CsrGraph graph;
+        private final double[] scores;
+        private final int iterations;
+        private final double residual;
+
+        Scores(CsrGraph graph, double[] scores, int iterations, double residual) {
+            this.graph = graph;
+            this.scores = scores;
+            this.iterations = iterations;
+            this.residual = residual;
+        }
+
+        public CsrGraph getGraph() {
+            return graph;
+        }
+
+        public double score(int id) {
+            return id >= 0 && id < scores.length ? scores[id] : 0;
+        }
+
+        public double score(String word) {
+            return score(graph.id(word));
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        //最后一轮的L1变化量
+        public double getResidual() {
+            return residual;
+        }
+
+        //分数最高的k个单词，按分数从高到低，分数相同时按ID
+        public List<Map.Entry<String, Double>> top(int k) {
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(k, 1),
+                    (a, b) -> scores[a] != scores[b] ? Double.compare(scores[a], scores[b]) : Integer.compare(b, a));
+            for (int v : graph.nodeIds()) {
+                if (heap.size() < k) {
+                    heap.add(v);
+                } else if (k > 0 && (scores[v] > scores[heap.peek()]
+                        || (scores[v] == scores[heap.peek()] && v < heap.peek()))) {
+                    heap.poll();
+                    heap.add(v);
+                }
+            }
+            List<Map.Entry<String, Double>> top = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                int v = heap.poll();
+                top.add(new AbstractMap.SimpleImmutableEntry<>(graph.word(v), scores[v]));
+            }
+            Collections.reverse(top);
+            return top;
+        }
+    }
+
+    public Scores run(CsrGraph graph) {
+        return run(graph, null);
+    }
+
+    //previous不为null时以其分数为初值（按单词ID对应，新节点取均值后整体归一化）
+    public Scores run(CsrGraph graph, Scores previous) {
+        int n = graph.idCount();
+        int[] nodeIds = graph.nodeIds();
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        if (nodeIds.length == 0) {
+            return new Scores(graph, rank, 0, 0);
+        }
+        int count = nodeIds.length;
+
+        int[] outOffsets = graph.outOffsets();
+        int[] outWeights = graph.outWeights();
+        double[] invOutWeight = new double[n];
+        int[] dangling = IntStream.of(nodeIds).filter(v -> outOffsets[v + 1] == outOffsets[v]).toArray();
+        for (int v : nodeIds) {
+            long sum = 0;
+            for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                sum += outWeights[e];
+            }
+            invOutWeight[v] = sum == 0 ? 0 : 1.0 / sum;
+        }
+
+        double total = 0;
+        for (int v : nodeIds) {
+            rank[v] = previous != null && previous.score(v) > 0 ? previous.score(v) : 1.0 / count;
+            total += rank[v];
+        }
+        for (int v : nodeIds) {
+            rank[v] /= total;
+        }
+
+        int[] inOffsets = graph.inOffsets();
+        int[] inSources = graph.inSources();
+        int[] inWeights = graph.inWeights();
+        double residual = 0;
+        int iteration = 0;
+        while (iteration < maxIterations) {
+            double danglingSum = 0;
+            for (int v : dangling) {
+                danglingSum += rank[v];
+            }
+            double base = (1 - damping) / count + damping * danglingSum / count;
+            double[] current = rank;
+            double[] target = next;
+            IntStream range = IntStream.range(0, count);
+            (parallel ? range.parallel() : range).forEach(i -> {
+                int v = nodeIds[i];
+                double sum = 0;
+                for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                    int u = inSources[e];
+                    sum += current[u] * inWeights[e] * invOutWeight[u];
+                }
+                target[v] = base + damping * sum;
+            });
+            residual = 0;
+            for (int v : nodeIds) {
+                residual += Math.abs(next[v] - rank[v]);
+            }
+            double[] swap = rank;
+            rank = next;
+            next = swap;
+            iteration++;
+            if (residual < tolerance) {
+                break;
+            }
+        }
+        return new Scores(graph, rank, iteration, residual);
+    }
+}
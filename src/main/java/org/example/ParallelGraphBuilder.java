@@ -0,0 +1,193 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+//fork/join并行建图：第i个单词对是(words[i], words[i+1])，按单词对下标切分区间，
+//区间边界处的单词对属于左侧区间，因此每条相邻边恰好统计一次。
+//叶子任务的部分计数按源单词的哈希分区，各分区并行合并并直接写成边数组，再一次并入CSR；
+//顺序执行的只有按不同单词数给字典分配ID，以及CSR的计数排序
+public class ParallelGraphBuilder {
+    public static final int DEFAULT_THRESHOLD = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final int partitions;
+
+    public ParallelGraphBuilder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ParallelGraphBuilder(ForkJoinPool pool, int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        this.pool = pool;
+        this.threshold = threshold;
+        this.partitions = 4 * pool.getParallelism();
+    }
+
+    public void build(Main.Graph graph, List<String> words) {
+        long start = GraphMetrics.start();
+        if (!(words instanceof RandomAccess)) {
+            words = new ArrayList<>(words);
+        }
+        int pairs = words.size() - 1;
+        if (pairs <= 0) {
+            return;
+        }
+        List<List<Map<String, Map<String, int[]>>>> leaves = pool.invoke(new CountTask(words, 0, pairs));
+
+        // 各分区合并所有叶子的同号分区，分区之间的源单词互不相交
+        List<Map<String, Map<String, int[]>>> merged = new ArrayList<>(Collections.nCopies(partitions, null));
+        int[] offsets = new int[partitions + 1];
+        forEachPartition(p -> {
+            Map<String, Map<String, int[]>> counts = new HashMap<>();
+            for (List<Map<String, Map<String, int[]>>> leaf : leaves) {
+                Map<String, Map<String, int[]>> part = leaf.get(p);
+                if (part != null) {
+                    counts = merge(counts, part);
+                }
+            }
+            int edges = 0;
+            for (Map<String, int[]> dests : counts.values()) {
+                edges += dests.size();
+            }
+            merged.set(p, counts);
+            offsets[p + 1] = edges;
+        });
+
+        // 除最后一个单词外，每个单词都是某个单词对的源，各分区的源单词加上最后一个单词就是全部节点
+        WordDictionary dictionary = graph.dictionary();
+        int nodeCount = 0;
+        for (Map<String, Map<String, int[]>> counts : merged) {
+            nodeCount += counts.size();
+        }
+        String last = words.get(pairs);
+        boolean lastIsSource = merged.get(partition(last)).containsKey(last);
+        int[] nodes = new int[lastIsSource ? nodeCount : nodeCount + 1];
+        int k = 0;
+        for (Map<String, Map<String, int[]>> counts : merged) {
+            for (String src : counts.keySet()) {
+                nodes[k++] = dictionary.add(src);
+            }
+        }
+        if (!lastIsSource) {
+            nodes[k] = dictionary.add(last);
+        }
+        for (int p = 0; p < partitions; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+
+        // 字典不再写入，各分区并行查ID，填入自己那一段边数组
+        int[] srcs = new int[offsets[partitions]];
+        int[] dsts = new int[srcs.length];
+        int[] weights = new int[srcs.length];
+        forEachPartition(p -> {
+            int e = offsets[p];
+            for (Map.Entry<String, Map<String, int[]>> entry : merged.get(p).entrySet()) {
+                int src = dictionary.id(entry.getKey());
+                for (Map.Entry<String, int[]> weightEntry : entry.getValue().entrySet()) {
+                    srcs[e] = src;
+                    dsts[e] = dictionary.id(weightEntry.getKey());
+                    weights[e++] = weightEntry.getValue()[0];
+                }
+            }
+        });
+        graph.addCounts(nodes, srcs, dsts, weights);
+        GraphMetrics.recordIngest(words.size(), pairs, start);
+    }
+
+    private int partition(String word) {
+        int h = word.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), partitions);
+    }
+
+    //每个分区一个任务，在pool中并行执行
+    private void forEachPartition(IntConsumer action) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(partitions);
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            tasks.add(ForkJoinTask.adapt(() -> action.accept(partition)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    //统计[lo, hi)区间内单词对的部分邻接计数，按源单词分区，没有单词对的分区为null；
+    //int[1]作为可变计数器避免反复装箱。返回各叶子的结果，不在这里合并
+    private final class CountTask extends RecursiveTask<List<List<Map<String, Map<String, int[]>>>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> words;
+        private final int lo;
+        private final int hi;
+
+        CountTask(List<String> words, int lo, int hi) {
+            this.words = words;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected List<List<Map<String, Map<String, int[]>>>> compute() {
+            if (hi - lo <= threshold) {
+                List<Map<String, Map<String, int[]>>> parts = new ArrayList<>(Collections.nCopies(partitions, null));
+                for (int i = lo; i < hi; i++) {
+                    String src = words.get(i);
+                    int p = partition(src);
+                    Map<String, Map<String, int[]>> counts = parts.get(p);
+                    if (counts == null) {
+                        counts = new HashMap<>();
+                        parts.set(p, counts);
+                    }
+                    counts.computeIfAbsent(src, k -> new HashMap<>())
+                            .computeIfAbsent(words.get(i + 1), k -> new int[1])[0]++;
+                }
+                List<List<Map<String, Map<String, int[]>>>> leaves = new ArrayList<>();
+                leaves.add(parts);
+                return leaves;
+            }
+            int mid = (lo + hi) >>> 1;
+            CountTask left = new CountTask(words, lo, mid);
+            left.fork();
+            List<List<Map<String, Map<String, int[]>>>> right = new CountTask(words, mid, hi).compute();
+            List<List<Map<String, Map<String, int[]>>>> leaves = left.join();
+            leaves.addAll(right);
+            return leaves;
+        }
+    }
+
+    //把较小的部分图并入较大的部分图
+    private static Map<String, Map<String, int[]>> merge(Map<String, Map<String, int[]>> a,
+                                                         Map<String, Map<String, int[]>> b) {
+        if (a.size() < b.size()) {
+            Map<String, Map<String, int[]>> t = a;
+            a = b;
+            b = t;
+        }
+        for (Map.Entry<String, Map<String, int[]>> entry : b.entrySet()) {
+            Map<String, int[]> target = a.get(entry.getKey());
+            if (target == null) {
+                a.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            for (Map.Entry<String, int[]> weightEntry : entry.getValue().entrySet()) {
+                int[] count = target.get(weightEntry.getKey());
+                if (count == null) {
+                    target.put(weightEntry.getKey(), weightEntry.getValue());
+                } else {
+                    count[0] += weightEntry.getValue()[0];
+                }
+            }
+        }
+        return a;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example;
+
+import java.util.Arrays;
+
+//强连通分量和缩点后DAG的拓扑序，用非递归的Tarjan算法计算，深图不会栈溢出。
+//Tarjan按逆拓扑序产出分量：有边C1→C2（C1≠C2）时C2先完成、编号更小，
+//所以component(u) < component(v)时u一定到不了v，可以O(1)拒绝；最短路径搜索也可以跳过编号小于终点分量的节点
+public class ReachabilityIndex {
+    private final int[] component;
+    private final int[] offsets;
+    private final int[] members;
+
+    private ReachabilityIndex(int[] component, int[] offsets, int[] members) {
+        this.component = component;
+        this.offsets = offsets;
+        this.members = members;
+    }
+
+    public static ReachabilityIndex build(CsrGraph graph) {
+        int n = graph.idCount();
+        int[] outOffsets = graph.outOffsets();
+        int[] outTargets = graph.outTargets();
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] component = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(component, -1);
+        int[] sccStack = new int[n];
+        boolean[] onStack = new boolean[n];
+        int sccTop = 0;
+        // 调用栈：节点和它下一条待处理的出边
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        int nextIndex = 0;
+        int components = 0;
+
+        for (int root : graph.nodeIds()) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callNode[0] = root;
+            callEdge[0] = outOffsets[root];
+            index[root] = lowLink[root] = nextIndex++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+            while (depth >= 0) {
+                int v = callNode[depth];
+                int e = callEdge[depth];
+                if (e < outOffsets[v + 1]) {
+                    callEdge[depth] = e + 1;
+                    int w = outTargets[e];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = nextIndex++;
+                        sccStack[sccTop++] = w;
+                        onStack[w] = true;
+                        depth++;
+                        callNode[depth] = w;
+                        callEdge[depth] = outOffsets[w];
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+                // v的出边处理完：是分量的根时弹出整个分量，然后回到父节点
+                if (lowLink[v] == index[v]) {
+                    int w;
+                    do {
+                        w = sccStack[--sccTop];
+                        onStack[w] = false;
+                        component[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                depth--;
+                if (depth >= 0) {
+                    int parent = callNode[depth];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+            }
+        }
+
+        // 按分量分组的成员表
+        int[] offsets = new int[components + 1];
+        for (int v = 0; v < n; v++) {
+            if (component[v] >= 0) {
+                offsets[component[v] + 1]++;
+            }
+        }
+        for (int c = 0; c < components; c++) {
+            offsets[c + 1] += offsets[c];
+        }
+        int[] members = new int[offsets[components]];
+        int[] fill = Arrays.copyOf(offsets, components);
+        for (int v = 0; v < n; v++) {
+            if (component[v] >= 0) {
+                members[fill[component[v]]++] = v;
+            }
+        }
+        return new ReachabilityIndex(component, offsets, members);
+    }
+
+    public int componentCount() {
+        return offsets.length - 1;
+    }
+
+    //节点所在分量的编号，不是节点时返回-1；编号顺序即缩点DAG的逆拓扑序
+    public int component(int v) {
+        return v >= 0 && v < component.length ? component[v] : -1;
+    }
+
+    //分量在缩点DAG拓扑序中的位置，源分量在前
+    public int topologicalPosition(int c) {
+        return componentCount() - 1 - c;
+    }
+
+    public int componentSize(int c) {
+        return offsets[c + 1] - offsets[c];
+    }
+
+    //分量的成员，按节点ID升序
+    public int[] members(int c) {
+        return Arrays.copyOfRange(members, offsets[c], offsets[c + 1]);
+    }
+
+    //各分量的大小，按分量编号
+    public int[] componentSizes() {
+        int[] sizes = new int[componentCount()];
+        for (int c = 0; c < sizes.length; c++) {
+            sizes[c] = componentSize(c);
+        }
+        return sizes;
+    }
+
+    public int largestComponentSize() {
+        int largest = 0;
+        for (int c = 0; c < componentCount(); c++) {
+            largest = Math.max(largest, componentSize(c));
+        }
+        return largest;
+    }
+
+    public boolean sameComponent(int u, int v) {
+        return component(u) >= 0 && component(u) == component(v);
+    }
+
+    //false表示u一定到不了v；true表示可能到得了（同一分量时一定到得了）
+    public boolean mayReach(int u, int v) {
+        int cu = component(u);
+        int cv = component(v);
+        return cu >= 0 && cv >= 0 && cu >= cv;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//按源点缓存最短路径树的LRU缓存，容量有上限；绑定的CsrGraph变化（图被修改后重新freeze）时整体失效
+public class ShortestPathCache {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final int capacity;
+    private final LinkedHashMap<Integer, ShortestPathTree> trees;
+    private CsrGraph graph;
+    private long hits;
+    private long misses;
+
+    public ShortestPathCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ShortestPathCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.trees = new LinkedHashMap<Integer, ShortestPathTree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ShortestPathTree> eldest) {
+                return size() > ShortestPathCache.this.capacity;
+            }
+        };
+    }
+
+    //取得源点的最短路径树，不在缓存中时计算；Dijkstra在锁外执行
+    public ShortestPathTree get(CsrGraph csr, int source) {
+        synchronized (this) {
+            if (graph != csr) {
+                trees.clear();
+                graph = csr;
+            }
+            ShortestPathTree tree = trees.get(source);
+            if (tree != null) {
+                hits++;
+                return tree;
+            }
+            misses++;
+        }
+        ShortestPathTree tree = ShortestPathTree.compute(csr, source);
+        synchronized (this) {
+            if (graph == csr) {
+                trees.put(source, tree);
+            }
+        }
+        return tree;
+    }
+
+    //图从before增量修改为after：只淘汰可能受影响的树，其余的树改为绑定到after
+    public synchronized void patch(CsrGraph before, CsrGraph after, GraphDelta delta) {
+        if (graph != before) {
+            trees.clear();
+            graph = after;
+            return;
+        }
+        Iterator<Map.Entry<Integer, ShortestPathTree>> it = trees.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, ShortestPathTree> entry = it.next();
+            if (entry.getValue().affectedBy(delta)) {
+                it.remove();
+            } else {
+                entry.setValue(entry.getValue().rebind(after));
+            }
+        }
+        graph = after;
+    }
+
+    public synchronized void invalidate() {
+        trees.clear();
+        graph = null;
+    }
+
+    public synchronized int size() {
+        return trees.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
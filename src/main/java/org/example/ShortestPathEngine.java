@@ -0,0 +1,337 @@
+package org.example;
+
+import java.util.Arrays;
+
+//基于整数ID的点对点最短路径引擎：索引堆支持decrease-key，每个线程复用一套按版本号失效的临时数组，
+//查询过程中不分配对象。可选双向Dijkstra，正反两个方向的搜索相遇后即停止；
+//或者给定地标后用ALT下界做A*搜索，距离与Dijkstra相同，等长路径之间可能选出不同的一条
+public class ShortestPathEngine {
+    public static final int UNREACHABLE = ShortestPathTree.UNREACHABLE;
+
+    private final CsrGraph graph;
+    private final boolean bidirectional;
+    private final Landmarks landmarks;
+    private final ReachabilityIndex reachability;
+    private final ThreadLocal<Scratch> scratch;
+
+    public ShortestPathEngine(CsrGraph graph) {
+        this(graph, false);
+    }
+
+    public ShortestPathEngine(CsrGraph graph, boolean bidirectional) {
+        this.graph = graph;
+        this.bidirectional = bidirectional;
+        this.landmarks = null;
+        this.reachability = graph.reachability();
+        int n = graph.idCount();
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(n, bidirectional, false));
+    }
+
+    //使用地标下界的A*引擎，landmarks必须是在同一个图上计算的
+    public ShortestPathEngine(CsrGraph graph, Landmarks landmarks) {
+        if (landmarks.getGraph() != graph) {
+            throw new IllegalArgumentException("landmarks were computed for a different graph");
+        }
+        this.graph = graph;
+        this.bidirectional = false;
+        this.landmarks = landmarks;
+        this.reachability = graph.reachability();
+        int n = graph.idCount();
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(n, false, true));
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    public Landmarks getLandmarks() {
+        return landmarks;
+    }
+
+    //最短距离，不可达时返回UNREACHABLE
+    public int distance(int src, int dst) {
+        Scratch s = scratch.get();
+        return search(s, src, dst) ? s.resultDistance : UNREACHABLE;
+    }
+
+    //从src到dst的节点ID序列（含两端），不可达时返回null
+    public int[] path(int src, int dst) {
+        Scratch s = scratch.get();
+        if (!search(s, src, dst)) {
+            return null;
+        }
+        int length = 1;
+        for (int v = s.meet; v != src; v = s.prevF[v]) {
+            length++;
+        }
+        int forward = length;
+        for (int v = s.meet; v != dst; v = s.nextB[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = forward - 1;
+        for (int v = s.meet; ; v = s.prevF[v]) {
+            path[i--] = v;
+            if (v == src) {
+                break;
+            }
+        }
+        i = forward;
+        for (int v = s.meet; v != dst; ) {
+            v = s.nextB[v];
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    //与Graph.calcShortestPath格式相同的查询
+    public String calcShortestPath(String start, String end) {
+        int src = graph.id(start);
+        int dst = graph.id(end);
+        if (!graph.containsNode(src) || !graph.containsNode(dst)) {
+            return "No " + start + " or " + end + " in the graph!";
+        }
+        int[] path = path(src, dst);
+        if (path == null) {
+            return "No path from " + start + " to " + end + "!";
+        }
+        return format(path, scratch.get().resultDistance);
+    }
+
+    //格式为终点→...→起点 (length: d)，与原实现一致
+    String format(int[] path, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = path.length - 1; i > 0; i--) {
+            if (sb.length() > 0) {
+                sb.append("→");
+            }
+            sb.append(graph.word(path[i]));
+        }
+        sb.append("→").append(graph.word(path[0]));
+        return sb + " (length: " + length + ")";
+    }
+
+    //当前线程上一次查询确定（出堆）的节点数
+    public int lastSettledCount() {
+        return scratch.get().settled;
+    }
+
+    //SHORTEST_PATH由调用方（CsrGraph/Graph.calcShortestPath）按整次查询记录，这里只记录确定的节点数
+    private boolean search(Scratch s, int src, int dst) {
+        s.reset();
+        if (src == dst) {
+            s.meet = src;
+            s.resultDistance = 0;
+            return true;
+        }
+        // 终点所在分量在拓扑序中位于起点之前时一定不可达
+        if (!reachability.mayReach(src, dst)) {
+            return false;
+        }
+        boolean found = landmarks != null ? searchAlt(s, src, dst)
+                : bidirectional ? searchBidirectional(s, src, dst) : searchForward(s, src, dst);
+        GraphMetrics.recordValue(GraphMetrics.NODES_SETTLED, s.settled);
+        return found;
+    }
+
+    //只扩展分量编号不小于终点分量的节点，其余节点到不了终点
+    private boolean searchForward(Scratch s, int src, int dst) {
+        int target = reachability.component(dst);
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        s.visitF(src, 0, -1);
+        s.heapF.insertOrDecrease(src, 0);
+        while (!s.heapF.isEmpty()) {
+            int node = s.heapF.pollMin();
+            s.settled++;
+            int distance = s.distF[node];
+            if (node == dst) {
+                s.meet = dst;
+                s.resultDistance = distance;
+                return true;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                if (reachability.component(neighbor) < target) {
+                    continue;
+                }
+                int newDistance = distance + weights[e];
+                if (!s.seenF(neighbor) || newDistance < s.distF[neighbor]) {
+                    s.visitF(neighbor, newDistance, node);
+                    s.heapF.insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+        return false;
+    }
+
+    //A*：堆的键为已知距离加到dst的下界，下界满足三角不等式，每个节点只出堆一次，dst出堆时即为最短距离；
+    //下界表明到不了dst的节点不入堆
+    private boolean searchAlt(Scratch s, int src, int dst) {
+        if (landmarks.lowerBound(src, dst) == UNREACHABLE) {
+            return false;
+        }
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        s.visitF(src, 0, -1);
+        s.bound[src] = landmarks.lowerBound(src, dst);
+        s.heapF.insertOrDecrease(src, s.bound[src]);
+        while (!s.heapF.isEmpty()) {
+            int node = s.heapF.pollMin();
+            s.settled++;
+            int distance = s.distF[node];
+            if (node == dst) {
+                s.meet = dst;
+                s.resultDistance = distance;
+                return true;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                int newDistance = distance + weights[e];
+                if (!s.seenF(neighbor)) {
+                    int bound = landmarks.lowerBound(neighbor, dst);
+                    s.visitF(neighbor, UNREACHABLE, -1);
+                    s.bound[neighbor] = bound;
+                    if (bound == UNREACHABLE) {
+                        continue;
+                    }
+                } else if (s.bound[neighbor] == UNREACHABLE || newDistance >= s.distF[neighbor]) {
+                    continue;
+                }
+                s.distF[neighbor] = newDistance;
+                s.prevF[neighbor] = node;
+                s.heapF.insertOrDecrease(neighbor, (int) Math.min((long) newDistance + s.bound[neighbor],
+                        Integer.MAX_VALUE - 1));
+            }
+        }
+        return false;
+    }
+
+    //双向Dijkstra：每次扩展堆顶较小的一侧，当两侧堆顶之和不小于已找到的最短距离时停止
+    private boolean searchBidirectional(Scratch s, int src, int dst) {
+        int[] outOffsets = graph.outOffsets();
+        int[] outTargets = graph.outTargets();
+        int[] outWeights = graph.outWeights();
+        int[] inOffsets = graph.inOffsets();
+        int[] inSources = graph.inSources();
+        int[] inWeights = graph.inWeights();
+        s.visitF(src, 0, -1);
+        s.heapF.insertOrDecrease(src, 0);
+        s.visitB(dst, 0, -1);
+        s.heapB.insertOrDecrease(dst, 0);
+        long best = Long.MAX_VALUE;
+        int meet = -1;
+        while (!s.heapF.isEmpty() && !s.heapB.isEmpty()) {
+            if ((long) s.heapF.minKey() + s.heapB.minKey() >= best) {
+                break;
+            }
+            if (s.heapF.minKey() <= s.heapB.minKey()) {
+                int node = s.heapF.pollMin();
+                s.settled++;
+                int distance = s.distF[node];
+                for (int e = outOffsets[node]; e < outOffsets[node + 1]; e++) {
+                    int neighbor = outTargets[e];
+                    int newDistance = distance + outWeights[e];
+                    if (!s.seenF(neighbor) || newDistance < s.distF[neighbor]) {
+                        s.visitF(neighbor, newDistance, node);
+                        s.heapF.insertOrDecrease(neighbor, newDistance);
+                    }
+                    if (s.seenB(neighbor) && (long) s.distF[neighbor] + s.distB[neighbor] < best) {
+                        best = (long) s.distF[neighbor] + s.distB[neighbor];
+                        meet = neighbor;
+                    }
+                }
+            } else {
+                int node = s.heapB.pollMin();
+                s.settled++;
+                int distance = s.distB[node];
+                for (int e = inOffsets[node]; e < inOffsets[node + 1]; e++) {
+                    int neighbor = inSources[e];
+                    int newDistance = distance + inWeights[e];
+                    if (!s.seenB(neighbor) || newDistance < s.distB[neighbor]) {
+                        s.visitB(neighbor, newDistance, node);
+                        s.heapB.insertOrDecrease(neighbor, newDistance);
+                    }
+                    if (s.seenF(neighbor) && (long) s.distF[neighbor] + s.distB[neighbor] < best) {
+                        best = (long) s.distF[neighbor] + s.distB[neighbor];
+                        meet = neighbor;
+                    }
+                }
+            }
+        }
+        if (meet < 0) {
+            return false;
+        }
+        s.meet = meet;
+        s.resultDistance = (int) best;
+        return true;
+    }
+
+    //每个线程一份的临时数组，stamp递增即可使上一次查询的数据全部失效
+    private static final class Scratch {
+        final int[] distF;
+        final int[] prevF;
+        final int[] stampF;
+        final int[] distB;
+        final int[] nextB;
+        final int[] stampB;
+        final int[] bound;
+        final IntIndexedHeap heapF;
+        final IntIndexedHeap heapB;
+        int stamp;
+        int meet;
+        int resultDistance;
+        int settled;
+
+        Scratch(int n, boolean bidirectional, boolean alt) {
+            int m = bidirectional ? n : 0;
+            bound = new int[alt ? n : 0];
+            distF = new int[n];
+            prevF = new int[n];
+            stampF = new int[n];
+            distB = new int[m];
+            nextB = new int[m];
+            stampB = new int[m];
+            heapF = new IntIndexedHeap(n);
+            heapB = new IntIndexedHeap(m);
+        }
+
+        void reset() {
+            heapF.clear();
+            heapB.clear();
+            settled = 0;
+            meet = -1;
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(stampF, 0);
+                Arrays.fill(stampB, 0);
+                stamp = 1;
+            }
+        }
+
+        boolean seenF(int v) {
+            return stampF[v] == stamp;
+        }
+
+        boolean seenB(int v) {
+            return stampB[v] == stamp;
+        }
+
+        void visitF(int v, int distance, int prev) {
+            stampF[v] = stamp;
+            distF[v] = distance;
+            prevF[v] = prev;
+        }
+
+        void visitB(int v, int distance, int next) {
+            stampB[v] = stamp;
+            distB[v] = distance;
+            nextB[v] = next;
+        }
+    }
+}
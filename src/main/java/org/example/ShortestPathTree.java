@@ -0,0 +1,121 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//单源最短路径树：一次Dijkstra得到源点到所有节点的距离和前驱，之后任意终点的路径只需沿前驱回溯
+public class ShortestPathTree {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final CsrGraph graph;
+    private final int source;
+    private final int[] distances;
+    private final int[] prev;
+
+    private ShortestPathTree(CsrGraph graph, int source, int[] distances, int[] prev) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.prev = prev;
+    }
+
+    public static ShortestPathTree compute(CsrGraph graph, int source) {
+        long start = GraphMetrics.start();
+        int n = graph.idCount();
+        int[] distances = new int[n];
+        int[] prev = new int[n];
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(prev, -1);
+        distances[source] = 0;
+
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        IntIndexedHeap heap = new IntIndexedHeap(n);
+        heap.insertOrDecrease(source, 0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int node = heap.pollMin();
+            settled++;
+            int distance = distances[node];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int neighbor = targets[e];
+                int newDistance = distance + weights[e];
+                if (newDistance < distances[neighbor]) {
+                    distances[neighbor] = newDistance;
+                    prev[neighbor] = node;
+                    heap.insertOrDecrease(neighbor, newDistance);
+                }
+            }
+        }
+        GraphMetrics.record(GraphMetrics.SHORTEST_PATH_TREE, start);
+        GraphMetrics.recordValue(GraphMetrics.NODES_SETTLED, settled);
+        return new ShortestPathTree(graph, source, distances, prev);
+    }
+
+    //增量修改是否可能改变这棵树：树边的权重变化或删除，或者出现了更短的新路径
+    boolean affectedBy(GraphDelta delta) {
+        for (GraphDelta.EdgeChange change : delta.getEdgeChanges()) {
+            int u = change.getSrcId();
+            int v = change.getDestId();
+            if (u >= distances.length || distances[u] == UNREACHABLE) {
+                continue;
+            }
+            if (v < prev.length && prev[v] == u) {
+                return true;
+            }
+            boolean cheaper = change.getNewWeight() > 0
+                    && (change.isAdded() || change.getNewWeight() < change.getOldWeight());
+            if (cheaper && (v >= distances.length || (long) distances[u] + change.getNewWeight() < distances[v])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //把未受影响的树绑定到修改后的图上，距离和前驱数组直接共享
+    ShortestPathTree rebind(CsrGraph newGraph) {
+        return new ShortestPathTree(newGraph, source, distances, prev);
+    }
+
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    public int getSource() {
+        return source;
+    }
+
+    public int distance(int target) {
+        return target < distances.length ? distances[target] : UNREACHABLE;
+    }
+
+    public boolean reaches(int target) {
+        return distance(target) != UNREACHABLE;
+    }
+
+    //前驱节点ID，源点和不可达节点为-1
+    public int prev(int target) {
+        return target < prev.length ? prev[target] : -1;
+    }
+
+    //与Graph.calcShortestPath格式相同的路径描述
+    public String pathTo(int target) {
+        if (!reaches(target)) {
+            return "No path from " + graph.word(source) + " to " + graph.word(target) + "!";
+        }
+        return graph.formatPath(source, target, prev, distances[target]);
+    }
+
+    //源点到图中其他所有节点的路径，按节点ID顺序
+    public Map<String, String> pathsToAll() {
+        Map<String, String> paths = new LinkedHashMap<>();
+        for (int node : graph.nodeIds()) {
+            if (node != source) {
+                paths.put(graph.word(node), pathTo(node));
+            }
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//流式语料读取：按块内存映射文件，单遍完成规范化（同address_file）和分词，
+//相邻单词对直接写入Graph，堆上只保留词表和边，不保留整份文本
+public class StreamingIngest {
+    public static final long DEFAULT_CHUNK_SIZE = 64L << 20;
+
+    private final Main.Graph graph;
+    private final OffHeapGraph offHeap;
+    private final long chunkSize;
+
+    private char[] word = new char[32];
+    private int wordLength;
+    private String prev;
+    private long tokenCount;
+    private long pairCount;
+
+    public StreamingIngest(Main.Graph graph) {
+        this(graph, DEFAULT_CHUNK_SIZE);
+    }
+
+    public StreamingIngest(Main.Graph graph, long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.graph = graph;
+        this.offHeap = null;
+        this.chunkSize = chunkSize;
+    }
+
+    //写入堆外存储边的图
+    public StreamingIngest(OffHeapGraph graph, long chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.graph = null;
+        this.offHeap = graph;
+        this.chunkSize = chunkSize;
+    }
+
+    public static StreamingIngest ingest(Main.Graph graph, Path path) throws IOException {
+        StreamingIngest ingest = new StreamingIngest(graph);
+        ingest.readFile(path);
+        return ingest;
+    }
+
+    //读取一个文件；跨块的单词由word缓冲区自然衔接
+    public void readFile(Path path) throws IOException {
+        long start = GraphMetrics.start();
+        long tokensBefore = tokenCount;
+        long pairsBefore = pairCount;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long pos = 0; pos < size; pos += chunkSize) {
+                long length = Math.min(chunkSize, size - pos);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+                int limit = buffer.limit();
+                for (int i = 0; i < limit; i++) {
+                    accept(buffer.get(i));
+                }
+            }
+        }
+        flushWord();
+        GraphMetrics.recordIngest(tokenCount - tokensBefore, pairCount - pairsBefore, start);
+    }
+
+    //与address_file一致：大写转小写，字母保留，其余字符（含多字节UTF-8的各个字节）视为分隔符
+    private void accept(byte b) {
+        char c = (char) (b & 0xff);
+        if (c >= 'A' && c <= 'Z') {
+            appendChar((char) (c + 32));
+        } else if (c >= 'a' && c <= 'z') {
+            appendChar(c);
+        } else {
+            flushWord();
+        }
+    }
+
+    private void appendChar(char c) {
+        if (wordLength == word.length) {
+            char[] grown = new char[word.length * 2];
+            System.arraycopy(word, 0, grown, 0, wordLength);
+            word = grown;
+        }
+        word[wordLength++] = c;
+    }
+
+    private void flushWord() {
+        if (wordLength == 0) {
+            return;
+        }
+        String current = new String(word, 0, wordLength);
+        wordLength = 0;
+        tokenCount++;
+        if (prev != null && offHeap != null) {
+            offHeap.addEdge(prev, current);
+            pairCount++;
+        } else if (prev != null) {
+            // 与Text2Graph一致：只有出现在单词对中的单词才成为节点
+            if (pairCount == 0) {
+                graph.addNode(prev);
+            }
+            graph.addNode(current);
+            graph.addEdge(prev, current);
+            pairCount++;
+        }
+        prev = current;
+    }
+
+    public long getTokenCount() {
+        return tokenCount;
+    }
+
+    public long getPairCount() {
+        return pairCount;
+    }
+}
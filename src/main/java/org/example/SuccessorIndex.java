@@ -0,0 +1,373 @@
+package org.example;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+//按权重排序的后继/前驱索引，用于“X之后最可能出现的词”和输入补全：
+//每个节点的邻接按权重从大到小保存，top-k只需读取前k项；边权变化时在行内定位后移动到新位置，
+//权重加1时只需与同权重块的第一个元素交换。权重相同的邻居之间的顺序不保证。
+//挂到Graph上后随addEdge和增量修改同步更新；不是线程安全的
+public class SuccessorIndex implements GraphListener {
+    private final WordDictionary dictionary;
+    private final Adjacency successors = new Adjacency();
+    private final Adjacency predecessors = new Adjacency();
+    private final TreeSet<String> words = new TreeSet<>();
+
+    public SuccessorIndex(WordDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    //从CSR快照建立索引，ID与快照的字典一致
+    public static SuccessorIndex build(CsrGraph graph) {
+        return build(graph, graph.getDictionary());
+    }
+
+    static SuccessorIndex build(CsrGraph graph, WordDictionary dictionary) {
+        SuccessorIndex index = new SuccessorIndex(dictionary);
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        for (int v : graph.nodeIds()) {
+            index.addWord(v);
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                index.increment(v, targets[e], weights[e]);
+            }
+        }
+        return index;
+    }
+
+    public void addWord(int id) {
+        words.add(dictionary.word(id));
+    }
+
+    //边权变化delta，可以为负；权重降到0时删除这条边
+    public void increment(int src, int dest, int delta) {
+        successors.add(src, dest, delta);
+        predecessors.add(dest, src, delta);
+    }
+
+    @Override
+    public void graphChanged(GraphDelta delta) {
+        for (int id : delta.getAddedNodeIds()) {
+            addWord(id);
+        }
+        for (GraphDelta.EdgeChange change : delta.getEdgeChanges()) {
+            increment(change.getSrcId(), change.getDestId(), change.getNewWeight() - change.getOldWeight());
+        }
+        for (String word : delta.getRemovedNodes()) {
+            words.remove(word);
+        }
+    }
+
+    //权重最大的k个后继，按权重从大到小
+    public List<Map.Entry<String, Integer>> topSuccessors(String word, int k) {
+        return top(successors, dictionary.id(word), k);
+    }
+
+    //权重最大的k个前驱，按权重从大到小
+    public List<Map.Entry<String, Integer>> topPredecessors(String word, int k) {
+        return top(predecessors, dictionary.id(word), k);
+    }
+
+    //把id的前k个后继写入out，返回写入个数
+    public int topSuccessors(int id, int k, int[] out) {
+        return successors.top(id, k, out);
+    }
+
+    public int topPredecessors(int id, int k, int[] out) {
+        return predecessors.top(id, k, out);
+    }
+
+    //(src, dest)在src后继行中的位置，边不在索引中时返回-1
+    int successorPosition(int src, int dest) {
+        return successors.positions.get((long) src << 32 | dest);
+    }
+
+    //(src, dest)在dest前驱行中的位置，边不在索引中时返回-1
+    int predecessorPosition(int src, int dest) {
+        return predecessors.positions.get((long) dest << 32 | src);
+    }
+
+    private List<Map.Entry<String, Integer>> top(Adjacency adjacency, int id, int k) {
+        if (id < 0 || id >= adjacency.sizes.length || k <= 0) {
+            return new ArrayList<>();
+        }
+        int n = Math.min(k, adjacency.sizes[id]);
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            top.add(new AbstractMap.SimpleImmutableEntry<>(dictionary.word(adjacency.ids[id][i]),
+                    adjacency.weights[id][i]));
+        }
+        return top;
+    }
+
+    //以prefix开头的单词，按字典序最多limit个
+    public List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        NavigableSet<String> range = prefix.isEmpty() ? words
+                : words.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (String word : range) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(word);
+        }
+        return result;
+    }
+
+    //previous之后以prefix开头的后继，按权重从大到小最多limit个
+    public List<String> completeNext(String previous, String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        int id = dictionary.id(previous);
+        if (id < 0 || id >= successors.sizes.length) {
+            return result;
+        }
+        for (int i = 0; i < successors.sizes[id] && result.size() < limit; i++) {
+            String word = dictionary.word(successors.ids[id][i]);
+            if (word.startsWith(prefix)) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    //每行按权重降序的邻接数组，以及(行, 邻居)到行内位置的映射
+    private static final class Adjacency {
+        private static final int[] EMPTY = new int[0];
+
+        int[][] ids = new int[16][];
+        int[][] weights = new int[16][];
+        int[] sizes = new int[16];
+        final PositionTable positions = new PositionTable();
+
+        Adjacency() {
+            Arrays.fill(ids, EMPTY);
+            Arrays.fill(weights, EMPTY);
+        }
+
+        int top(int row, int k, int[] out) {
+            if (row < 0 || row >= sizes.length) {
+                return 0;
+            }
+            int n = Math.min(Math.min(k, sizes[row]), out.length);
+            System.arraycopy(ids[row], 0, out, 0, n);
+            return n;
+        }
+
+        void add(int row, int col, int delta) {
+            if (delta == 0) {
+                return;
+            }
+            ensureRow(row);
+            long key = (long) row << 32 | col;
+            int pos = positions.get(key);
+            int[] w;
+            if (pos < 0) {
+                if (delta < 0) {
+                    throw new IllegalArgumentException("edge " + row + " -> " + col + " is not indexed");
+                }
+                if (sizes[row] == ids[row].length) {
+                    int capacity = Math.max(4, sizes[row] * 2);
+                    ids[row] = Arrays.copyOf(ids[row], capacity);
+                    weights[row] = Arrays.copyOf(weights[row], capacity);
+                }
+                pos = sizes[row]++;
+                ids[row][pos] = col;
+                weights[row][pos] = 0;
+                positions.put(key, pos);
+            }
+            w = weights[row];
+            int old = w[pos];
+            int weight = old + delta;
+            if (weight < 0) {
+                throw new IllegalArgumentException("edge " + row + " -> " + col + " weight would become " + weight);
+            }
+            w[pos] = weight;
+            if (delta > 0) {
+                // 第一个权重小于新权重的位置，pos之前的元素按降序排列
+                int lo = 0;
+                int hi = pos;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (w[mid] < weight) {
+                        hi = mid;
+                    } else {
+                        lo = mid + 1;
+                    }
+                }
+                if (lo < pos) {
+                    if (w[lo] == old) {
+                        swap(row, lo, pos);
+                    } else {
+                        rotate(row, pos, lo);
+                    }
+                }
+            } else {
+                int size = sizes[row];
+                int lo = pos + 1;
+                int hi = size;
+                // pos之后第一个权重不大于新权重的位置
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (w[mid] > weight) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                int target = lo - 1;
+                if (target > pos) {
+                    if (w[target] == old) {
+                        swap(row, pos, target);
+                    } else {
+                        rotate(row, pos, target);
+                    }
+                    pos = target;
+                }
+                if (weight == 0) {
+                    // 其余的边权重都为正，权重为0的边此时已在行末
+                    positions.remove(key);
+                    sizes[row]--;
+                }
+            }
+        }
+
+        private void ensureRow(int row) {
+            if (row >= sizes.length) {
+                int capacity = Math.max(sizes.length * 2, row + 1);
+                int old = sizes.length;
+                ids = Arrays.copyOf(ids, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                Arrays.fill(ids, old, capacity, EMPTY);
+                Arrays.fill(weights, old, capacity, EMPTY);
+            }
+        }
+
+        private void swap(int row, int a, int b) {
+            int[] r = ids[row];
+            int[] w = weights[row];
+            int id = r[a];
+            r[a] = r[b];
+            r[b] = id;
+            int weight = w[a];
+            w[a] = w[b];
+            w[b] = weight;
+            positions.put((long) row << 32 | r[a], a);
+            positions.put((long) row << 32 | r[b], b);
+        }
+
+        //把from处的元素移动到to，中间的元素依次顺移一位
+        private void rotate(int row, int from, int to) {
+            int[] r = ids[row];
+            int[] w = weights[row];
+            int id = r[from];
+            int weight = w[from];
+            if (from < to) {
+                System.arraycopy(r, from + 1, r, from, to - from);
+                System.arraycopy(w, from + 1, w, from, to - from);
+            } else if (from > to) {
+                System.arraycopy(r, to, r, to + 1, from - to);
+                System.arraycopy(w, to, w, to + 1, from - to);
+            }
+            r[to] = id;
+            w[to] = weight;
+            for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+                positions.put((long) row << 32 | r[i], i);
+            }
+        }
+    }
+
+    //long键到int值的开放寻址哈希表，删除时向前回填
+    private static final class PositionTable {
+        private static final long EMPTY = -1;
+
+        private long[] keys = new long[64];
+        private int[] values = new int[64];
+        private int size;
+
+        PositionTable() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+                if (keys[i] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long key, int value) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                keys[i] = key;
+                if (++size * 2 > keys.length) {
+                    values[i] = value;
+                    rehash(keys.length * 2);
+                    return;
+                }
+            }
+            values[i] = value;
+        }
+
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // 把后面同一探测链上的键前移，保持查找不中断
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = slot(keys[j], mask);
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = EMPTY;
+            size--;
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int j = slot(oldKeys[i], mask);
+                    while (keys[j] != EMPTY) {
+                        j = (j + 1) & mask;
+                    }
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+    }
+}
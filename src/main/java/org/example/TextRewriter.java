@@ -0,0 +1,332 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+//流式的generateNewText：从Reader读入，按address_file规范化、按INPUT_text规则分词，
+//相邻单词对分批并行查询桥接词，结果按原顺序写入Writer。单词对的查询结果（包括没有桥接词）进入缓存。
+//分词单遍完成：字符写入复用的缓冲区，按字符区间在字典中查ID，只有不在字典中的单词才创建String；
+//缓冲区和批次数组按线程复用，短文本的一次改写几乎不产生垃圾。
+//改写String时与Graph.generateNewText相同，只按INPUT_text规则分词，规范化由调用方先用address_file完成
+public class TextRewriter {
+    public static final int DEFAULT_BATCH_SIZE = 1 << 14;
+    public static final int DEFAULT_CACHE_SIZE = 1 << 20;
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+    private static final String NO_BRIDGE = " ";
+
+    private final CsrGraph graph;
+    private final BridgeIndex index;
+    private final int batchSize;
+    private final BridgeCache cache;
+    private final ThreadLocal<Scratch> scratch;
+    private final ThreadLocal<int[]> found = ThreadLocal.withInitial(() -> new int[16]);
+
+    public TextRewriter(CsrGraph graph) {
+        this(graph, DEFAULT_BATCH_SIZE, DEFAULT_CACHE_SIZE);
+    }
+
+    public TextRewriter(CsrGraph graph, int batchSize, int cacheSize) {
+        if (batchSize < 2) {
+            throw new IllegalArgumentException("batchSize must be at least 2: " + batchSize);
+        }
+        this.graph = graph;
+        this.index = graph.bridgeIndex();
+        this.batchSize = batchSize;
+        this.cache = new BridgeCache(cacheSize);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(Math.min(64, batchSize)));
+    }
+
+    //改写整段输入，返回读入的单词数
+    public long rewrite(Reader in, Writer out) throws IOException {
+        long total = rewrite(in, null, true, out);
+        out.flush();
+        return total;
+    }
+
+    //改写一段已经规范化的文本，结果与Graph.generateNewText相同
+    public String rewrite(String text) {
+        StringBuilder out = new StringBuilder(text.length() + (text.length() >> 1));
+        try {
+            rewrite(null, text, false, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    //输入来自in或text之一；normalize时按address_file把字母转小写、其余字符视为空格，否则只以空格分词
+    private long rewrite(Reader in, String text, boolean normalize, Appendable out) throws IOException {
+        long start = GraphMetrics.start();
+        Scratch s = scratch.get();
+        if (s.busy) {
+            // 同一线程内重入（例如Writer回调里再次改写）时不能共用缓冲区
+            s = new Scratch(Math.min(64, batchSize));
+        }
+        s.busy = true;
+        try {
+            long total = tokenize(in, text, normalize, out, s);
+            GraphMetrics.record(GraphMetrics.TEXT_GENERATION, start);
+            GraphMetrics.recordValue(GraphMetrics.TEXT_GENERATION_WORDS, total);
+            return total;
+        } finally {
+            s.busy = false;
+        }
+    }
+
+    private long tokenize(Reader in, String text, boolean normalize, Appendable out, Scratch s) throws IOException {
+        String[] tokens = s.tokens;
+        int[] ids = s.ids;
+        char[] buffer = s.buffer;
+        int count = 0;
+        long total = 0;
+        int textPos = 0;
+
+        int wordLength = 0;
+        boolean any = false;
+        boolean endsWithSpace = false;
+        while (true) {
+            int read;
+            if (in != null) {
+                read = in.read(buffer);
+            } else {
+                read = Math.min(buffer.length, text.length() - textPos);
+                if (read <= 0) {
+                    read = -1;
+                } else {
+                    text.getChars(textPos, textPos + read, buffer, 0);
+                    textPos += read;
+                }
+            }
+            if (read == -1) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                any = true;
+                boolean letter = c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z';
+                if (normalize ? letter : c != ' ') {
+                    if (wordLength == s.word.length) {
+                        s.word = Arrays.copyOf(s.word, wordLength * 2);
+                    }
+                    s.word[wordLength++] = normalize && c <= 'Z' ? (char) (c + 32) : c;
+                    endsWithSpace = false;
+                } else {
+                    endsWithSpace = true;
+                    if (wordLength == 0) {
+                        continue;
+                    }
+                    ids[count] = resolve(s.word, wordLength, tokens, count);
+                    wordLength = 0;
+                    total++;
+                    if (++count == tokens.length) {
+                        if (s.grow(batchSize)) {
+                            tokens = s.tokens;
+                            ids = s.ids;
+                        } else {
+                            flush(tokens, ids, s.bridges, count, out);
+                            tokens[0] = tokens[count - 1];
+                            ids[0] = ids[count - 1];
+                            count = 1;
+                        }
+                    }
+                }
+            }
+        }
+        if (!any) {
+            return 0;
+        }
+        if (count == tokens.length) {
+            flush(tokens, ids, s.bridges, count, out);
+            tokens[0] = tokens[count - 1];
+            ids[0] = ids[count - 1];
+            count = 1;
+        }
+        // 与INPUT_text一致：以空白结尾时最后多出一个空单词
+        ids[count] = resolve(s.word, endsWithSpace ? 0 : wordLength, tokens, count);
+        count++;
+        total++;
+        flush(tokens, ids, s.bridges, count, out);
+        out.append(tokens[count - 1]);
+        return total;
+    }
+
+    //在字典中按字符区间查找单词，已知单词直接复用字典里的String
+    private int resolve(char[] word, int length, String[] tokens, int slot) {
+        int id = graph.id(word, 0, length);
+        tokens[slot] = id >= 0 ? graph.word(id) : new String(word, 0, length);
+        return id;
+    }
+
+    //写出除最后一个单词外的所有单词及其后的桥接词，最后一个单词留给下一批作为单词对的前半部分
+    private void flush(String[] tokens, int[] ids, String[] bridges, int count, Appendable out) throws IOException {
+        int pairs = count - 1;
+        if (pairs >= PARALLEL_THRESHOLD) {
+            IntStream.range(0, pairs).parallel().forEach(i -> bridges[i] = bridge(ids[i], ids[i + 1]));
+        } else {
+            for (int i = 0; i < pairs; i++) {
+                bridges[i] = bridge(ids[i], ids[i + 1]);
+            }
+        }
+        for (int i = 0; i < pairs; i++) {
+            out.append(tokens[i]);
+            out.append(' ');
+            if (bridges[i] != NO_BRIDGE) {
+                out.append(bridges[i]);
+                out.append(' ');
+            }
+            bridges[i] = null;
+        }
+    }
+
+    private String bridge(int src, int dst) {
+        if (!graph.containsNode(src) || !graph.containsNode(dst)) {
+            return NO_BRIDGE;
+        }
+        long key = ((long) src << 32) | dst;
+        String cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        int max = Math.min(graph.outDegree(src), graph.inDegree(dst));
+        int[] out = found.get();
+        if (out.length < max) {
+            out = new int[Math.max(max, out.length * 2)];
+            found.set(out);
+        }
+        int n = index.bridges(src, dst, out);
+        String result = NO_BRIDGE;
+        if (n > 0) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(graph.word(out[i]));
+            }
+            result = sb.toString();
+        }
+        cache.put(key, result);
+        return result;
+    }
+
+    //以(src, dst)打包成的long为键的桥接词缓存：按键的哈希分段加锁，段内是开放寻址表，
+    //总条数达到limit后不再加入新键
+    private static final class BridgeCache {
+        private static final int SEGMENT_BITS = 6;
+        private static final long EMPTY = -1;
+
+        private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+        private final int segmentLimit;
+
+        BridgeCache(int limit) {
+            segmentLimit = (limit + segments.length - 1) >> SEGMENT_BITS;
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = new Segment();
+            }
+        }
+
+        private static long hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 29);
+        }
+
+        String get(long key) {
+            long h = hash(key);
+            return segments[(int) (h >>> (64 - SEGMENT_BITS))].get(key, (int) h);
+        }
+
+        void put(long key, String value) {
+            long h = hash(key);
+            segments[(int) (h >>> (64 - SEGMENT_BITS))].put(key, (int) h, value, segmentLimit);
+        }
+
+        private static final class Segment {
+            private long[] keys = new long[16];
+            private String[] values = new String[16];
+            private int size;
+
+            Segment() {
+                Arrays.fill(keys, EMPTY);
+            }
+
+            synchronized String get(long key, int hash) {
+                int mask = keys.length - 1;
+                for (int i = hash & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                    if (keys[i] == key) {
+                        return values[i];
+                    }
+                }
+                return null;
+            }
+
+            synchronized void put(long key, int hash, String value, int limit) {
+                if (size >= limit) {
+                    return;
+                }
+                if (2 * (size + 1) > keys.length) {
+                    long[] oldKeys = keys;
+                    String[] oldValues = values;
+                    keys = new long[oldKeys.length * 2];
+                    values = new String[oldKeys.length * 2];
+                    Arrays.fill(keys, EMPTY);
+                    for (int i = 0; i < oldKeys.length; i++) {
+                        if (oldKeys[i] != EMPTY) {
+                            insert(oldKeys[i], (int) hash(oldKeys[i]), oldValues[i]);
+                        }
+                    }
+                }
+                if (insert(key, hash, value)) {
+                    size++;
+                }
+            }
+
+            //返回是否新增了键
+            private boolean insert(long key, int hash, String value) {
+                int mask = keys.length - 1;
+                int i = hash & mask;
+                while (keys[i] != EMPTY) {
+                    if (keys[i] == key) {
+                        values[i] = value;
+                        return false;
+                    }
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = value;
+                return true;
+            }
+        }
+    }
+
+    //每个线程复用的分词缓冲区和批次数组
+    private static final class Scratch {
+        final char[] buffer = new char[1 << 12];
+        char[] word = new char[32];
+        String[] tokens;
+        int[] ids;
+        String[] bridges;
+        boolean busy;
+
+        Scratch(int capacity) {
+            tokens = new String[capacity];
+            ids = new int[capacity];
+            bridges = new String[capacity];
+        }
+
+        //批次数组按需增长到batchSize，短文本不必一次分配整批；已到上限时返回false
+        boolean grow(int batchSize) {
+            if (tokens.length >= batchSize) {
+                return false;
+            }
+            int capacity = Math.min(batchSize, tokens.length * 2);
+            tokens = Arrays.copyOf(tokens, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            bridges = new String[capacity];
+            return true;
+        }
+    }
+}
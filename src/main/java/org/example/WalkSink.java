@@ -0,0 +1,7 @@
+package org.example;
+
+//批量随机游走的接收端。nodes是复用的缓冲区，只在调用期间有效；并行生成时会被多个线程同时调用
+@FunctionalInterface
+public interface WalkSink {
+    void accept(long walkIndex, int[] nodes, int length);
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import java.util.Arrays;
+
+//单词到稠密整数ID的字典，开放寻址哈希表，ID按加入顺序分配且只增不减。
+//snapshot()得到的只读视图与原字典共享数组：原字典之后只会写入视图看不到的ID和原本为空的槽位，
+//扩容时换用新数组，所以视图不需要复制，查询时跳过大于等于自身size的ID即可
+public class WordDictionary {
+    private static final int EMPTY = -1;
+
+    private String[] words;
+    private int[] hashes;
+    private int[] table;
+    private int mask;
+    private int size;
+    private boolean readOnly;
+
+    public WordDictionary() {
+        this(16);
+    }
+
+    public WordDictionary(int expectedSize) {
+        int capacity = tableSizeFor(Math.max(expectedSize, 4));
+        words = new String[Math.max(expectedSize, 4)];
+        hashes = new int[words.length];
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String word(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("word id " + id + " out of range [0, " + size + ")");
+        }
+        return words[id];
+    }
+
+    //查询单词ID，不存在时返回-1
+    public int id(String word) {
+        int hash = word.hashCode();
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (id < size && hashes[id] == hash && words[id].equals(word)) {
+                return id;
+            }
+        }
+    }
+
+    //按字符区间查询单词ID，不存在时返回-1；哈希与String.hashCode一致，查询时不创建String
+    public int find(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return -1;
+            }
+            if (id < size && hashes[id] == hash && regionEquals(words[id], chars, offset, length)) {
+                return id;
+            }
+        }
+    }
+
+    private static boolean regionEquals(String word, char[] chars, int offset, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //加入单词并返回其ID，已存在则直接返回原ID
+    public int add(String word) {
+        if (readOnly) {
+            throw new IllegalStateException("dictionary snapshot is read-only");
+        }
+        int hash = word.hashCode();
+        int slot = mix(hash) & mask;
+        for (; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                break;
+            }
+            if (hashes[id] == hash && words[id].equals(word)) {
+                return id;
+            }
+        }
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        words[id] = word;
+        hashes[id] = hash;
+        table[slot] = id;
+        // 装载因子不超过0.5
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    //复制出一份独立的可修改字典，ID保持不变；哈希表按自身的单词重建，不带上共享表中视图看不到的ID
+    public WordDictionary copy() {
+        WordDictionary copy = new WordDictionary(0);
+        copy.words = Arrays.copyOf(words, Math.max(size, 4));
+        copy.hashes = Arrays.copyOf(hashes, copy.words.length);
+        copy.size = size;
+        copy.rehash(table.length);
+        return copy;
+    }
+
+    //当前内容的只读视图，O(1)，之后加入的单词对视图不可见
+    public WordDictionary snapshot() {
+        WordDictionary view = new WordDictionary(0);
+        view.words = words;
+        view.hashes = hashes;
+        view.table = table;
+        view.mask = mask;
+        view.size = size;
+        view.readOnly = true;
+        return view;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 1)) << 1;
+        return Math.max(capacity, 8);
+    }
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BridgeMatrixTest {
+    private final Main lab = new Main();
+
+    //所有单词对都与BridgeIndex.query一致：有桥接词的单词对恰好出现一次，桥接词相同且按ID升序
+    @Test
+    void matchesBridgeQueryOnAllPairs() throws IOException {
+        CsrGraph graph = randomGraph(3_000, 40, 1);
+        assertMatchesQuery(graph, new BridgeMatrix(graph));
+    }
+
+    //字节上限极小时每行单独成块，块的划分不影响结果
+    @Test
+    void tinyBlocksGiveSameResult() throws IOException {
+        CsrGraph graph = randomGraph(3_000, 40, 2);
+        assertMatchesQuery(graph, new BridgeMatrix(graph).blockBytes(1).maxPendingBlocks(2));
+        assertMatchesQuery(graph, new BridgeMatrix(graph).blockRows(3).blockBytes(4096).maxPendingBlocks(1));
+    }
+
+    private static void assertMatchesQuery(CsrGraph graph, BridgeMatrix matrix) throws IOException {
+        Map<String, List<String>> pairs = new HashMap<>();
+        for (Iterator<BridgeMatrix.Pair> it = matrix.iterator(); it.hasNext(); ) {
+            BridgeMatrix.Pair pair = it.next();
+            List<String> old = pairs.put(pair.getWord1() + " " + pair.getWord2(), Arrays.asList(pair.getBridgeWords()));
+            assertNull(old);
+        }
+        BridgeIndex index = graph.bridgeIndex();
+        int found = 0;
+        for (int a : graph.nodeIds()) {
+            for (int c : graph.nodeIds()) {
+                List<String> expected = index.query(graph.word(a), graph.word(c)).getBridgeWords();
+                List<String> actual = pairs.get(graph.word(a) + " " + graph.word(c));
+                if (expected.isEmpty()) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected, actual);
+                    found++;
+                }
+            }
+        }
+        assertEquals(found, pairs.size());
+        StringWriter out = new StringWriter();
+        assertEquals(found, matrix.write(out));
+        assertEquals(found, out.toString().split("\n").length);
+    }
+
+    private CsrGraph randomGraph(int count, int vocabulary, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            int word = random.nextInt(vocabulary);
+            text.append(' ').append((char) ('a' + word % 26)).append((char) ('a' + word / 26));
+        }
+        Main.Graph graph = lab.new Graph();
+        lab.Text2Graph(graph, lab.new Text(text.toString()));
+        return graph.freeze();
+    }
+}
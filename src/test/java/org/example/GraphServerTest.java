@@ -0,0 +1,108 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GraphServerTest {
+    private final Main lab = new Main();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Main.Graph graph;
+    private GraphServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        graph = lab.new Graph();
+        lab.Text2Graph(graph, lab.new Text("the quick fox jumps over the lazy dog and the quick cat"));
+        //端口0由系统分配空闲端口
+        server = new GraphServer(graph.freeze(), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.follow(graph);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    @Test
+    void bridge() throws Exception {
+        HttpResponse<String> response = get("/bridge?word1=" + encode("the") + "&word2=" + encode("fox"));
+        assertEquals(200, response.statusCode());
+        assertEquals(graph.freeze().bridgeIndex().query("the", "fox").toString(), response.body());
+    }
+
+    @Test
+    void newTextByGetAndPost() throws Exception {
+        String expected = graph.freeze().generateNewText("jumps the dog");
+        assertEquals("jumps over the lazy dog", expected);
+        assertEquals(expected, get("/newtext?text=" + encode("jumps the dog")).body());
+        HttpResponse<String> posted = client.send(HttpRequest.newBuilder(uri("/newtext"))
+                        .POST(HttpRequest.BodyPublishers.ofString("jumps the dog", StandardCharsets.UTF_8)).build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        assertEquals(200, posted.statusCode());
+        assertEquals(expected, posted.body());
+    }
+
+    @Test
+    void path() throws Exception {
+        HttpResponse<String> response = get("/path?start=quick&end=dog");
+        assertEquals(200, response.statusCode());
+        assertEquals(graph.freeze().calcShortestPath("quick", "dog"), response.body());
+    }
+
+    @Test
+    void walkWithSeed() throws Exception {
+        HttpResponse<String> response = get("/walk?seed=42");
+        assertEquals(200, response.statusCode());
+        assertEquals(graph.freeze().randomWalk(new SplittableRandom(42)), response.body());
+    }
+
+    @Test
+    void missingParameterIsBadRequest() throws Exception {
+        HttpResponse<String> response = get("/bridge?word1=the");
+        assertEquals(400, response.statusCode());
+        assertEquals("missing parameter: word2", response.body());
+    }
+
+    //追加文本和显式合并的addEdge都会发布新快照
+    @Test
+    void followPublishesEveryChange() throws Exception {
+        assertEquals("No dog or bird in the graph!", get("/path?start=dog&end=bird").body());
+        graph.appendText("dog bird");
+        assertEquals(graph.freeze(), server.current());
+        assertEquals("bird→dog (length: 1)", get("/path?start=dog&end=bird").body());
+
+        graph.addNode("owl");
+        graph.addEdge("bird", "owl");
+        graph.freeze();
+        assertEquals(graph.freeze(), server.current());
+        assertEquals("owl→bird→dog (length: 2)", get("/path?start=dog&end=owl").body());
+    }
+
+    private HttpResponse<String> get(String pathAndQuery) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(pathAndQuery)).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+
+    private URI uri(String pathAndQuery) {
+        InetSocketAddress address = server.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + pathAndQuery);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
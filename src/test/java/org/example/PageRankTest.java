@@ -0,0 +1,101 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PageRankTest {
+    private final Main lab = new Main();
+
+    //没有出边的节点把分数均匀分出去，总和仍为1；并行与串行结果一致
+    @Test
+    void scoresSumToOneWithDanglingNodes() {
+        CsrGraph graph = randomGraph(2_000, 300, 1);
+        int dangling = 0;
+        for (int v : graph.nodeIds()) {
+            if (graph.outDegree(v) == 0) {
+                dangling++;
+            }
+        }
+        assertTrue(dangling > 0);
+        PageRank.Scores parallel = new PageRank().run(graph);
+        PageRank.Scores serial = new PageRank().parallel(false).run(graph);
+        double sum = 0;
+        for (int v : graph.nodeIds()) {
+            sum += parallel.score(v);
+            assertEquals(serial.score(v), parallel.score(v), 0);
+        }
+        assertEquals(1, sum, 1e-12);
+    }
+
+    //a→b(1)、a→c(3)、b→c(1)，c没有出边，阻尼0.5：
+    //r_a = 1/6 + r_c/6，r_b = r_a + r_a/8，r_c = r_a + 3r_a/8 + r_b/2，解得16/65、18/65、31/65
+    @Test
+    void handComputedThreeNodes() {
+        Main.Graph graph = lab.new Graph();
+        graph.addNode("a");
+        graph.addNode("b");
+        graph.addNode("c");
+        graph.addEdge("a", "b", 1);
+        graph.addEdge("a", "c", 3);
+        graph.addEdge("b", "c", 1);
+        PageRank.Scores scores = new PageRank().damping(0.5).tolerance(1e-15).run(graph.freeze());
+        assertEquals(16.0 / 65, scores.score("a"), 1e-12);
+        assertEquals(18.0 / 65, scores.score("b"), 1e-12);
+        assertEquals(31.0 / 65, scores.score("c"), 1e-12);
+        assertEquals("c", scores.top(1).get(0).getKey());
+    }
+
+    //图小幅修改后，从上次的分数热启动收敛到与冷启动相同的结果，且轮数更少
+    @Test
+    void warmStartConvergesFaster() {
+        Main.Graph graph = lab.new Graph();
+        lab.Text2Graph(graph, lab.new Text(randomText(50_000, 2_000, 2)));
+        PageRank.Scores before = new PageRank().run(graph.freeze());
+        graph.appendText(word(1) + " " + word(2) + " " + word(3) + " newword " + word(4));
+        CsrGraph after = graph.freeze();
+
+        PageRank.Scores cold = new PageRank().run(after);
+        PageRank.Scores warm = new PageRank().run(after, before);
+        assertTrue(warm.getIterations() < cold.getIterations(),
+                warm.getIterations() + " >= " + cold.getIterations());
+        double diff = 0;
+        for (int v : after.nodeIds()) {
+            diff += Math.abs(warm.score(v) - cold.score(v));
+        }
+        assertTrue(diff < 1e-7, "L1 difference " + diff);
+    }
+
+    private CsrGraph randomGraph(int words, int vocabulary, long seed) {
+        Main.Graph graph = lab.new Graph();
+        lab.Text2Graph(graph, lab.new Text(randomText(words, vocabulary, seed)));
+        // 只作为终点出现的单词没有出边
+        for (int i = 0; i < 20; i++) {
+            graph.addNode("sink" + word(i));
+            graph.addEdge(word(i), "sink" + word(i), 1);
+        }
+        return graph.freeze();
+    }
+
+    private static String randomText(int count, int vocabulary, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            // 偏斜的词频使分数远离均匀分布，冷启动需要更多轮
+            text.append(' ').append(word((int) (vocabulary * Math.pow(random.nextDouble(), 3))));
+        }
+        return text.toString();
+    }
+
+    //Text2Graph会把数字当作分隔符，单词只用字母
+    private static String word(int i) {
+        StringBuilder word = new StringBuilder("w");
+        do {
+            word.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return word.toString();
+    }
+}
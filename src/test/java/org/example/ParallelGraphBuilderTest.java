@@ -0,0 +1,132 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class ParallelGraphBuilderTest {
+    private final Main lab = new Main();
+
+    @Test
+    void parallelBuildMatchesSequential() {
+        List<String> words = randomWords(200_000, 500, 1);
+        assertSameGraph(sequential(words), parallel(words, ParallelGraphBuilder.DEFAULT_THRESHOLD));
+    }
+
+    //极小的阈值使区间切得很碎，每个区间边界上的单词对都要恰好统计一次
+    @Test
+    void tinyThresholdCountsBoundaryPairsOnce() {
+        List<String> words = randomWords(5_000, 20, 2);
+        for (int threshold : new int[]{1, 2, 3, 7}) {
+            assertSameGraph(sequential(words), parallel(words, threshold));
+        }
+    }
+
+    @Test
+    void repeatedWordsAcrossBoundaries() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            words.add(i % 3 == 0 ? "a" : "b");
+        }
+        assertSameGraph(sequential(words), parallel(words, 1));
+    }
+
+    @Test
+    void shortInputs() {
+        assertSameGraph(sequential(List.of("a")), parallel(List.of("a"), 1));
+        assertSameGraph(sequential(List.of("a", "b")), parallel(List.of("a", "b"), 1));
+    }
+
+    //并入已有节点、边和写缓冲的图，已建好的后继索引随之更新
+    @Test
+    void buildIntoExistingGraph() {
+        List<String> first = randomWords(3_000, 50, 3);
+        List<String> second = randomWords(3_000, 80, 4);
+        Main.Graph expected = sequential(first);
+        lab.Text2Graph(expected, lab.new Text(String.join(" ", second)));
+
+        Main.Graph actual = sequential(first);
+        actual.addNode("w1");
+        actual.addEdge("w1", "w2");
+        expected.addNode("w1");
+        expected.addEdge("w1", "w2");
+        SuccessorIndex index = actual.successorIndex();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ParallelGraphBuilder(pool, 100).build(actual, second);
+        } finally {
+            pool.shutdown();
+        }
+        assertSameGraph(expected, actual);
+        CsrGraph csr = actual.freeze();
+        //权重相同的后继按ID排列，两种建图方式的ID不同，按集合比较
+        for (int v : csr.nodeIds()) {
+            assertEquals(new HashSet<>(expected.successorIndex().topSuccessors(csr.word(v), 100)),
+                    new HashSet<>(index.topSuccessors(csr.word(v), 100)));
+        }
+    }
+
+    private Main.Graph sequential(List<String> words) {
+        Main.Graph graph = lab.new Graph();
+        lab.Text2Graph(graph, lab.new Text(String.join(" ", words)));
+        return graph;
+    }
+
+    private Main.Graph parallel(List<String> words, int threshold) {
+        Main.Graph graph = lab.new Graph();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ParallelGraphBuilder(pool, threshold).build(graph, words);
+        } finally {
+            pool.shutdown();
+        }
+        return graph;
+    }
+
+    private static void assertSameGraph(Main.Graph expected, Main.Graph actual) {
+        CsrGraph a = expected.freeze();
+        CsrGraph b = actual.freeze();
+        assertEquals(nodes(a), nodes(b));
+        assertEquals(edges(a), edges(b));
+        assertEquals(a.edgeCount(), b.edgeCount());
+    }
+
+    private static TreeSet<String> nodes(CsrGraph graph) {
+        TreeSet<String> nodes = new TreeSet<>();
+        for (int v : graph.nodeIds()) {
+            nodes.add(graph.word(v));
+        }
+        return nodes;
+    }
+
+    //按单词而不是ID比较，两种建图方式分配ID的顺序不同
+    private static Map<String, Map<String, Integer>> edges(CsrGraph graph) {
+        Map<String, Map<String, Integer>> edges = new HashMap<>();
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        for (int v : graph.nodeIds()) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                edges.computeIfAbsent(graph.word(v), k -> new HashMap<>()).put(graph.word(targets[e]), weights[e]);
+            }
+        }
+        return edges;
+    }
+
+    private static List<String> randomWords(int count, int vocabulary, long seed) {
+        Random random = new Random(seed);
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add("w" + random.nextInt(vocabulary));
+        }
+        return words;
+    }
+}
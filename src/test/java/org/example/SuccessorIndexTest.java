@@ -0,0 +1,166 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class SuccessorIndexTest {
+    private final Main lab = new Main();
+
+    //随机的正负增量，包括恰好减到0的删除：每一步后与参照的边权表逐行比较，并检查位置表
+    @Test
+    void randomIncrementsMatchReference() {
+        int n = 12;
+        WordDictionary dictionary = new WordDictionary();
+        for (int i = 0; i < n; i++) {
+            dictionary.add(word(i));
+        }
+        SuccessorIndex index = new SuccessorIndex(dictionary);
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(1);
+        for (int step = 0; step < 20_000; step++) {
+            int src = random.nextInt(n);
+            int dest = random.nextInt(n);
+            long key = (long) src << 32 | dest;
+            int old = reference.getOrDefault(key, 0);
+            int delta;
+            if (old == 0) {
+                delta = 1 + random.nextInt(3);
+            } else if (random.nextInt(4) == 0) {
+                delta = -old;
+            } else {
+                delta = random.nextBoolean() ? -1 - random.nextInt(old) : 1 + random.nextInt(3);
+            }
+            index.increment(src, dest, delta);
+            if (old + delta == 0) {
+                reference.remove(key);
+            } else {
+                reference.put(key, old + delta);
+            }
+            assertMatches(index, dictionary, n, reference);
+        }
+    }
+
+    @Test
+    void invalidDecrementsAreRejected() {
+        WordDictionary dictionary = new WordDictionary();
+        dictionary.add("a");
+        dictionary.add("b");
+        SuccessorIndex index = new SuccessorIndex(dictionary);
+        assertThrows(IllegalArgumentException.class, () -> index.increment(0, 1, -1));
+        index.increment(0, 1, 2);
+        assertThrows(IllegalArgumentException.class, () -> index.increment(0, 1, -3));
+    }
+
+    //挂在Graph上的索引随appendText、removeText和addEdge更新，每一步后与CSR的边权逐行比较
+    @Test
+    void followsGraphChanges() {
+        Main.Graph graph = lab.new Graph();
+        SuccessorIndex index = graph.successorIndex();
+        List<String> appended = new ArrayList<>();
+        Random random = new Random(2);
+        for (int step = 0; step < 400; step++) {
+            int op = random.nextInt(5);
+            if (op < 2 || appended.isEmpty()) {
+                StringBuilder text = new StringBuilder();
+                for (int i = 0, len = 2 + random.nextInt(20); i < len; i++) {
+                    text.append(' ').append(word(random.nextInt(15)));
+                }
+                graph.appendText(text.toString());
+                appended.add(text.toString());
+            } else if (op < 4) {
+                graph.removeText(appended.remove(random.nextInt(appended.size())));
+            } else {
+                int[] nodes = graph.freeze().nodeIds();
+                if (nodes.length > 0) {
+                    CsrGraph csr = graph.freeze();
+                    graph.addEdge(csr.word(nodes[random.nextInt(nodes.length)]),
+                            csr.word(nodes[random.nextInt(nodes.length)]));
+                }
+            }
+            CsrGraph csr = graph.freeze();
+            Map<Long, Integer> reference = new HashMap<>();
+            int[] offsets = csr.outOffsets();
+            int[] targets = csr.outTargets();
+            int[] weights = csr.outWeights();
+            TreeSet<String> words = new TreeSet<>();
+            for (int v : csr.nodeIds()) {
+                words.add(csr.word(v));
+                for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                    reference.put((long) v << 32 | targets[e], weights[e]);
+                }
+            }
+            assertMatches(index, csr.getDictionary(), csr.idCount(), reference);
+            assertEquals(new ArrayList<>(words), index.complete("", Integer.MAX_VALUE));
+        }
+    }
+
+    //后继行和前驱行都与参照一致：权重按降序排列，与参照排序后的权重相同，邻居和权重一一对应，
+    //位置表指向各边在行内的实际位置，不在参照中的边没有位置
+    private static void assertMatches(SuccessorIndex index, WordDictionary dictionary, int n,
+                                      Map<Long, Integer> reference) {
+        for (int v = 0; v < n; v++) {
+            Map<String, Integer> out = new HashMap<>();
+            Map<String, Integer> in = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : reference.entrySet()) {
+                int src = (int) (entry.getKey() >>> 32);
+                int dest = (int) (long) entry.getKey();
+                if (src == v) {
+                    out.put(dictionary.word(dest), entry.getValue());
+                }
+                if (dest == v) {
+                    in.put(dictionary.word(src), entry.getValue());
+                }
+            }
+            List<Map.Entry<String, Integer>> successors = index.topSuccessors(dictionary.word(v), Integer.MAX_VALUE);
+            assertRow(out, successors);
+            for (int i = 0; i < successors.size(); i++) {
+                assertEquals(i, index.successorPosition(v, dictionary.id(successors.get(i).getKey())));
+            }
+            List<Map.Entry<String, Integer>> predecessors = index.topPredecessors(dictionary.word(v), Integer.MAX_VALUE);
+            assertRow(in, predecessors);
+            for (int i = 0; i < predecessors.size(); i++) {
+                assertEquals(i, index.predecessorPosition(dictionary.id(predecessors.get(i).getKey()), v));
+            }
+            for (int u = 0; u < n; u++) {
+                if (!reference.containsKey((long) v << 32 | u)) {
+                    assertEquals(-1, index.successorPosition(v, u));
+                    assertEquals(-1, index.predecessorPosition(v, u));
+                }
+            }
+        }
+    }
+
+    private static void assertRow(Map<String, Integer> expected, List<Map.Entry<String, Integer>> row) {
+        int[] sorted = expected.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int[] actual = new int[row.size()];
+        Map<String, Integer> entries = new HashMap<>();
+        for (int i = 0; i < row.size(); i++) {
+            actual[row.size() - 1 - i] = row.get(i).getValue();
+            entries.put(row.get(i).getKey(), row.get(i).getValue());
+            assertTrue(row.get(i).getValue() > 0);
+        }
+        // 行按权重降序，逆序后应与参照权重的升序排列相同
+        assertEquals(Arrays.toString(sorted), Arrays.toString(actual));
+        assertEquals(expected, entries);
+    }
+
+    //Text2Graph会把数字当作分隔符，单词只用字母
+    private static String word(int i) {
+        StringBuilder word = new StringBuilder("w");
+        do {
+            word.append((char) ('a' + i % 26));
+            i /= 26;
+        } while (i > 0);
+        return word.toString();
+    }
+}